@@ -0,0 +1,70 @@
+package com.wurmonline.server.creatures;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Price curve from the table against calculating it each time, for option QLs (on a table step) and item QLs (usually
+// not).  Setup fails if the table gives a different price to the calculation for any QL tried.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PriceCurveBenchmark {
+    private static final int count = 1024;
+    private final float[] optionQLs = new float[count];
+    private final float[] itemQLs = new float[count];
+    private int index = 0;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        for (int i = 0; i < count; ++i) {
+            optionQLs[i] = random.nextInt(10001) / 100f;
+            itemQLs[i] = random.nextFloat() * 100;
+        }
+
+        for (int i = 0; i <= 10000; ++i)
+            check(i / 100f);
+        for (int i = 0; i < count; ++i)
+            check(itemQLs[i]);
+    }
+
+    private static long calculate(float ql) {
+        return ql >= 70 ? CrafterTradeHandler.priceCalculation(ql) : CrafterTradeHandler.priceCalculationSub70(ql);
+    }
+
+    private void check(float ql) {
+        long expected = calculate(ql);
+        if (CrafterTradeHandler.priceCurve(ql) != expected)
+            throw new IllegalStateException("Price table differs from calculation at QL " + ql);
+    }
+
+    private float next(float[] qls) {
+        index = (index + 1) & (count - 1);
+        return qls[index];
+    }
+
+    @Benchmark
+    public long calculatedOption() {
+        return calculate(next(optionQLs));
+    }
+
+    @Benchmark
+    public long calculatedItem() {
+        return calculate(next(itemQLs));
+    }
+
+    @Benchmark
+    public long tableOption() {
+        return CrafterTradeHandler.priceCurve(next(optionQLs));
+    }
+
+    @Benchmark
+    public long tableItem() {
+        return CrafterTradeHandler.priceCurve(next(itemQLs));
+    }
+}
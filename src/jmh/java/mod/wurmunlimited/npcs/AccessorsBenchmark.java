@@ -0,0 +1,56 @@
+package mod.wurmunlimited.npcs;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+// Per call cost of reading a private field the way the hooks used to, against the cached handles from Accessors.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AccessorsBenchmark {
+    private static class Holder {
+        @SuppressWarnings("unused")
+        private final Object creature = new Object();
+    }
+
+    private static final MethodHandle handle;
+    private final Holder holder = new Holder();
+    private Field field;
+
+    static {
+        try {
+            handle = Accessors.getter(Holder.class, "creature");
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Setup
+    public void setUp() throws NoSuchFieldException {
+        field = Holder.class.getDeclaredField("creature");
+        field.setAccessible(true);
+    }
+
+    @Benchmark
+    public Object reflectionLookupPerCall() throws NoSuchFieldException, IllegalAccessException {
+        Field creature = Holder.class.getDeclaredField("creature");
+        creature.setAccessible(true);
+        return creature.get(holder);
+    }
+
+    @Benchmark
+    public Object cachedField() throws IllegalAccessException {
+        return field.get(holder);
+    }
+
+    @Benchmark
+    public Object cachedMethodHandle() throws Throwable {
+        return (Object)handle.invokeExact((Object)holder);
+    }
+}
@@ -0,0 +1,126 @@
+package mod.wurmunlimited.npcs;
+
+import com.wurmonline.server.behaviours.Actions;
+import com.wurmonline.server.items.ItemList;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// Cost of the OPEN guard in the behaviour dispatcher hook with 500 crafters, each with an assigned forge.  Items and
+// creatures cannot be created outside of a running server, so stand-ins are used - the item lookup is a map of every
+// item by id, and the original crafter to forge map is searched for the forge as before.  The hook's arguments are
+// boxed, as they are when the hook is called.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ForgeGuardBenchmark {
+    private static final int crafters = 500;
+    private static final int otherItems = 100000;
+
+    private static class StandInItem {
+        private final long wurmId;
+        private final int templateId;
+
+        private StandInItem(long wurmId, int templateId) {
+            this.wurmId = wurmId;
+            this.templateId = templateId;
+        }
+    }
+
+    private static class StandInCrafter {}
+
+    private final Map<Long, StandInItem> items = new HashMap<>();
+    private final Map<StandInCrafter, StandInItem> assignedForges = new HashMap<>();
+    private final LongHashSet forgeIds = new LongHashSet();
+    private Object[] openAssignedForge;
+    private Object[] openUnassignedForge;
+    private Object[] openBackpack;
+    private Object[] examineBackpack;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        long lastForge = 0;
+        for (int i = 0; i < crafters; ++i) {
+            StandInItem forge = new StandInItem(random.nextLong() & Long.MAX_VALUE, ItemList.forge);
+            items.put(forge.wurmId, forge);
+            assignedForges.put(new StandInCrafter(), forge);
+            forgeIds.add(forge.wurmId);
+            lastForge = forge.wurmId;
+        }
+        StandInItem unassigned = new StandInItem(random.nextLong() & Long.MAX_VALUE, ItemList.forge);
+        items.put(unassigned.wurmId, unassigned);
+        long backpack = 0;
+        for (int i = 0; i < otherItems; ++i) {
+            StandInItem item = new StandInItem(random.nextLong() & Long.MAX_VALUE, ItemList.backPack);
+            items.put(item.wurmId, item);
+            backpack = item.wurmId;
+        }
+
+        openAssignedForge = args(lastForge, Actions.OPEN);
+        openUnassignedForge = args(unassigned.wurmId, Actions.OPEN);
+        openBackpack = args(backpack, Actions.OPEN);
+        examineBackpack = args(backpack, Actions.EXAMINE);
+    }
+
+    private static Object[] args(long target, short action) {
+        return new Object[] { null, null, -10L, target, action };
+    }
+
+    // The original guard looked up the item, then searched the crafters for the forge.
+    private boolean originalGuard(Object[] args) {
+        if ((Short)args[4] == Actions.OPEN) {
+            StandInItem maybeForge = items.get((Long)args[3]);
+            return maybeForge != null && maybeForge.templateId == ItemList.forge && assignedForges.containsValue(maybeForge);
+        }
+        return false;
+    }
+
+    private boolean indexedGuard(Object[] args) {
+        return (Short)args[4] == Actions.OPEN && forgeIds.contains((Long)args[3]);
+    }
+
+    @Benchmark
+    public boolean originalExamineBackpack() {
+        return originalGuard(examineBackpack);
+    }
+
+    @Benchmark
+    public boolean originalOpenBackpack() {
+        return originalGuard(openBackpack);
+    }
+
+    @Benchmark
+    public boolean originalOpenAssignedForge() {
+        return originalGuard(openAssignedForge);
+    }
+
+    @Benchmark
+    public boolean originalOpenUnassignedForge() {
+        return originalGuard(openUnassignedForge);
+    }
+
+    @Benchmark
+    public boolean indexedExamineBackpack() {
+        return indexedGuard(examineBackpack);
+    }
+
+    @Benchmark
+    public boolean indexedOpenBackpack() {
+        return indexedGuard(openBackpack);
+    }
+
+    @Benchmark
+    public boolean indexedOpenAssignedForge() {
+        return indexedGuard(openAssignedForge);
+    }
+
+    @Benchmark
+    public boolean indexedOpenUnassignedForge() {
+        return indexedGuard(openUnassignedForge);
+    }
+}
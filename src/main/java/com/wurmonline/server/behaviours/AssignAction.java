@@ -34,7 +34,7 @@ public class AssignAction implements ModAction, BehaviourProvider, ActionPerform
                     && subject.getOwnerId() == performer.getWurmId() && subject.getData() != -1 && target.getTemplateId() == ItemList.forge) {
             Creature crafter = Creatures.getInstance().getCreatureOrNull(subject.getData());
             if (crafter != null) {
-                if (((CrafterAIData)crafter.getCreatureAIData()).getWorkBook().isForgeAssigned()) {
+                if (((CrafterAIData)crafter.getCreatureAIData()).getForges().contains(target)) {
                     return Collections.singletonList(new ActionEntry(actionId, "Unassign", "unassigning"));
                 } else {
                     return Collections.singletonList(new ActionEntry(actionId, "Assign", "assigning"));
@@ -51,14 +51,11 @@ public class AssignAction implements ModAction, BehaviourProvider, ActionPerform
         Creature crafter = Creatures.getInstance().getCreatureOrNull(source.getData());
         if (crafter != null) {
             CrafterAIData data = (CrafterAIData)crafter.getCreatureAIData();
-            if (data.getWorkBook().isForgeAssigned()) {
-                for (Item item : data.getForge().getItemsAsArray()) {
-                    crafter.getInventory().insertItem(item);
-                }
-                data.setForge(null);
+            if (data.getForges().contains(target)) {
+                data.removeForge(target);
                 performer.getCommunicator().sendNormalServerMessage("You unassign this forge from " + crafter.getName() + ".");
             } else {
-                if (CrafterAI.assignedForges.values().contains(target)) {
+                if (CrafterAI.registry.isForgeAssigned(target.getWurmId())) {
                     performer.getCommunicator().sendNormalServerMessage("That forge is already assigned to another crafter.");
                 } else if (!Methods.isActionAllowed(crafter, Actions.TAKE)) {
                     performer.getCommunicator().sendNormalServerMessage(crafter.getName() + " would not have permission to access this forge.");
@@ -67,7 +64,7 @@ public class AssignAction implements ModAction, BehaviourProvider, ActionPerform
                 } else if (!crafter.isWithinDistanceTo(target, crafter.getMaxHuntDistance())) {
                     performer.getCommunicator().sendNormalServerMessage("That forge is too far away.");
                 } else {
-                    data.setForge(target);
+                    data.addForge(target);
                     performer.getCommunicator().sendNormalServerMessage("You assign this forge to " + crafter.getName() + ".");
                 }
             }
@@ -27,14 +27,34 @@ public class CrafterTradeHandler extends TradeHandler {
     private boolean ownerTrade;
     private CrafterTrade trade;
     private Map<Integer, Float> targetQLs = new HashMap<>();
+    // Item id to its target QL and price for the selected options, so each item is only priced once per selection.
+    private final Map<Long, Quote> quotes = new HashMap<>();
     private boolean balanced = false;
     private boolean mailWhenDone = false;
     private boolean donating = false;
     private float priceModifier;
     private List<Item> optionItems = new ArrayList<>();
+    private OptionItemPool optionItemPool = null;
+    // Crafter id to the option items from its last trade.
+    private static final Map<Long, OptionItemPool> optionItemPools = new HashMap<>();
     private static BiMap<Integer, ItemTemplate> skillIcons = HashBiMap.create();
+    private static final int priceSteps = 100;
+    // Price curve at every 0.01 QL from 0 to 100.
+    private static final long[] priceTable = buildPriceTable();
     private Set<Item> coinsToCollect = new HashSet<>();
 
+    private static class Quote {
+        private final float itemQL;
+        private final float targetQL;
+        private final int price;
+
+        private Quote(float itemQL, float targetQL, int price) {
+            this.itemQL = itemQL;
+            this.targetQL = targetQL;
+            this.price = price;
+        }
+    }
+
     public CrafterTradeHandler(Creature crafter, CrafterTrade _trade) {
         creature = crafter;
         trade = _trade;
@@ -57,27 +77,106 @@ public class CrafterTradeHandler extends TradeHandler {
             buildSkillIcons();
     }
 
-    private void addOption(String label, ItemTemplate icon, float ql) throws IOException {
-        addOption(label, icon, -1, ql);
+    private static class Option {
+        private final String label;
+        private final ItemTemplate icon;
+        private final int price;
+        private final float ql;
+
+        private Option(String label, ItemTemplate icon, int price, float ql) {
+            this.label = label;
+            this.icon = icon;
+            this.price = price;
+            this.ql = ql;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Option))
+                return false;
+            Option other = (Option)obj;
+            return label.equals(other.label) && icon == other.icon && price == other.price && ql == other.ql;
+        }
+
+        @Override
+        public int hashCode() {
+            return label.hashCode();
+        }
     }
 
-    private void addOption(String label, ItemTemplate icon, int price, float ql) throws IOException {
-        TradingWindow window = trade.getTradingWindow(1);
-        TempItem item = new TempItem(label, icon, ql, "");
+    // Option items are kept for the crafter's next trade, and only made again when the options or their prices change.
+    private static class OptionItemPool {
+        private List<Option> options = Collections.emptyList();
+        private float priceModifier;
+        private final List<Item> items = new ArrayList<>();
+        private boolean inUse = false;
+
+        private void destroy() {
+            for (Item item : items)
+                Items.destroyItem(item.getWurmId());
+            items.clear();
+            options = Collections.emptyList();
+        }
+    }
+
+    private void addOption(List<Option> options, String label, ItemTemplate icon, float ql) {
+        options.add(new Option(label, icon, -1, ql));
+    }
+
+    private void addOption(List<Option> options, String label, ItemTemplate icon, int price, float ql) {
+        options.add(new Option(label, icon, price, ql));
+    }
+
+    private Item createOptionItem(Option option) throws IOException {
+        TempItem item = new TempItem(option.label, option.icon, option.ql, "");
         item.setMaterial((byte)0);
         item.setWeight(0, false);
-        if (price == -1)
-            item.setPrice(getPriceForImproveOption(item, (int)ql));
+        if (option.price == -1)
+            item.setPrice(getPriceForImproveOption(item, (int)option.ql));
         else
-            item.setPrice(price);
+            item.setPrice(option.price);
         item.setOwnerId(creature.getWurmId());
-        window.addItem(item);
-        optionItems.add(item);
+        return item;
+    }
+
+    private void addOptionItems(List<Option> options) {
+        OptionItemPool pool = optionItemPools.computeIfAbsent(creature.getWurmId(), id -> new OptionItemPool());
+        // Only one trade at a time should be possible, but just in case the other trade's items are left alone.
+        if (pool.inUse)
+            pool = new OptionItemPool();
+        if (!pool.options.equals(options) || pool.priceModifier != priceModifier) {
+            pool.destroy();
+            try {
+                for (Option option : options)
+                    pool.items.add(createOptionItem(option));
+                pool.options = options;
+                pool.priceModifier = priceModifier;
+            } catch (IOException e) {
+                logger.warning("Could not add menu option to trade window.  Reason follows:");
+                e.printStackTrace();
+            }
+        }
+        pool.inUse = true;
+        optionItemPool = pool;
+
+        TradingWindow window = trade.getTradingWindow(1);
+        for (Item item : pool.items) {
+            window.addItem(item);
+            optionItems.add(item);
+        }
+    }
+
+    // Called when a crafter is dismissed or destroyed.
+    public static void removeOptionItems(Creature crafter) {
+        OptionItemPool pool = optionItemPools.remove(crafter.getWurmId());
+        if (pool != null && !pool.inUse)
+            pool.destroy();
     }
 
     @Override
     public void addItemsToTrade() {
         // Menu option items
+        List<Option> options = new ArrayList<>();
         try {
             boolean atSkillCap = true;
             for (Skill skill : workBook.getCrafterType().getSkillsFor(creature)) {
@@ -88,20 +187,21 @@ public class CrafterTradeHandler extends TradeHandler {
                 if (template == null)
                     throw new NoSuchTemplateException("ItemTemplate not found for option icons.  Did buildSkillIcons fail?");
                 while (current <= skill.getKnowledge() && current <= skillCap && current <= CrafterMod.getSkillCap()) {
-                    addOption("Improve to " + current + "ql", template, current);
+                    addOption(options, "Improve to " + current + "ql", template, current);
                     current += 10;
                 }
                 if (current > skillCap && (float)current - 10.0f != skillCap)
-                    addOption(String.format("Improve to %.1fql", skillCap), template, current);
+                    addOption(options, String.format("Improve to %.1fql", skillCap), template, current);
             }
 
-            addOption("Mail to me when done", ItemTemplateFactory.getInstance().getTemplate(ItemList.mailboxWood), CrafterMod.mailPrice(), 1);
+            addOption(options, "Mail to me when done", ItemTemplateFactory.getInstance().getTemplate(ItemList.mailboxWood), CrafterMod.mailPrice(), 1);
             if (CrafterMod.canLearn() && !atSkillCap)
-                addOption("Donate Items", ItemTemplateFactory.getInstance().getTemplate(ItemList.backPack), 0, 1);
-        } catch (IOException | NoSuchTemplateException e) {
+                addOption(options, "Donate Items", ItemTemplateFactory.getInstance().getTemplate(ItemList.backPack), 0, 1);
+        } catch (NoSuchTemplateException e) {
             logger.warning("Could not add menu option to trade window.  Reason follows:");
             e.printStackTrace();
         }
+        addOptionItems(options);
 
         TradingWindow offerWindow = trade.getTradingWindow(1);
 
@@ -153,8 +253,18 @@ public class CrafterTradeHandler extends TradeHandler {
 
     @Override
     void end() {
-        for (Item option : optionItems)
-            Items.destroyItem(option.getWurmId());
+        if (optionItemPool != null) {
+            // Normally already taken out of the windows when the trade ended.
+            for (Item option : optionItemPool.items) {
+                if (option.getTradeWindow() != null)
+                    option.getTradeWindow().removeItem(option);
+            }
+            if (optionItemPools.get(creature.getWurmId()) == optionItemPool)
+                optionItemPool.inUse = false;
+            else
+                optionItemPool.destroy();
+            optionItemPool = null;
+        }
 
         for (Item coin : coinsToCollect) {
             if (coin.getOwnerId() == -10)
@@ -174,14 +284,29 @@ public class CrafterTradeHandler extends TradeHandler {
 
     @Override
     public int getTraderBuyPriceForItem(Item item) {
-        return getPriceForImproveOption(item, getTargetQL(item));
+        return getQuote(item).price;
+    }
+
+    private Quote getQuote(Item item) {
+        Quote quote = quotes.get(item.getWurmId());
+        if (quote == null || quote.itemQL != item.getQualityLevel()) {
+            int skill = MethodsItems.getImproveSkill(item);
+            Float targetQL = targetQLs.get(skill);
+            float ql = targetQL == null ? 0 : targetQL;
+            quote = new Quote(item.getQualityLevel(), ql, getPriceForImproveOption(item, skill, ql));
+            quotes.put(item.getWurmId(), quote);
+        }
+        return quote;
     }
 
     private int getPriceForImproveOption(Item item, float ql) {
-        float basePrice = CrafterMod.getBasePriceForSkill(MethodsItems.getImproveSkill(item)) * priceModifier;
-        float itemQL = item.getQualityLevel();
-        double current = itemQL >= 70 ? basePrice * priceCalculation(itemQL) : basePrice * priceCalculationSub70(itemQL);
-        double target = ql >= 70 ? basePrice * priceCalculation(ql) : basePrice * priceCalculationSub70(ql);
+        return getPriceForImproveOption(item, MethodsItems.getImproveSkill(item), ql);
+    }
+
+    private int getPriceForImproveOption(Item item, int skill, float ql) {
+        float basePrice = CrafterMod.getBasePriceForSkill(skill) * priceModifier;
+        double current = basePrice * priceCurve(item.getQualityLevel());
+        double target = basePrice * priceCurve(ql);
 
         if (item.isDragonArmour())
             return (int)((target - current) * CrafterMod.getBasePriceForSkill(-1));
@@ -189,13 +314,33 @@ public class CrafterTradeHandler extends TradeHandler {
         return (int)(target - current);
     }
 
-    private long priceCalculationSub70(float x) {
+    // Option and target QLs are nearly always whole or to 2 decimal places, so take the curve from the table when the QL
+    // is exactly one of its steps.
+    static long priceCurve(float ql) {
+        if (ql >= 0 && ql <= 100) {
+            int step = Math.round(ql * priceSteps);
+            if (step / (float)priceSteps == ql)
+                return priceTable[step];
+        }
+        return ql >= 70 ? priceCalculation(ql) : priceCalculationSub70(ql);
+    }
+
+    private static long[] buildPriceTable() {
+        long[] table = new long[100 * priceSteps + 1];
+        for (int step = 0; step < table.length; ++step) {
+            float ql = step / (float)priceSteps;
+            table[step] = ql >= 70 ? priceCalculation(ql) : priceCalculationSub70(ql);
+        }
+        return table;
+    }
+
+    static long priceCalculationSub70(float x) {
         // Curve gets messy when including values below 70.  Using simple curve instead.
         // Thank you LibreOffice.
         return Math.round(0.190567 * Math.pow(x, 2.016126));
     }
 
-    private long priceCalculation(float x) {
+    static long priceCalculation(float x) {
         // Based on 70ql=10c, 80ql=30c, 90ql=90c, 91ql=1s - Thank you The House of Lords one stop shop thread.
         // Thank you LibreOffice.
         return Math.round((0.779220779220503 * Math.pow(x, 3)) - (167.01298701292 * Math.pow(x, 2)) + (12083.1168831115 * x) - 293727.27272713);
@@ -203,7 +348,7 @@ public class CrafterTradeHandler extends TradeHandler {
     }
 
     private void suckInterestingItems() {
-        TradingWindow offerWindow = trade.getTradingWindow(2);
+        CrafterTradingWindow offerWindow = trade.getTradingWindow(2);
         TradingWindow myWindow = trade.getCreatureTwoRequestWindow();
         for (Item item : offerWindow.getItems()) {
             if (item.isCoin() || donating || (item.getQualityLevel() < getTargetQL(item) && !item.isNoImprove() && item.isRepairable() && !item.isNewbieItem() && !item.isChallengeNewbieItem())) {
@@ -214,7 +359,7 @@ public class CrafterTradeHandler extends TradeHandler {
             }
         }
 
-        int length = offerWindow.getItems().length;
+        int length = offerWindow.size();
         if (length > 0) {
             trade.creatureOne.getCommunicator().sendNormalServerMessage(creature.getName() + " says 'I cannot improve " + (length == 1 ? "that item.'" : "those items.'"));
         }
@@ -270,26 +415,45 @@ public class CrafterTradeHandler extends TradeHandler {
             }
         }
 
-        targetQLs.clear();
+        Map<Integer, Float> selected = new HashMap<>();
         for (Map.Entry<Integer, Item> target : currentHighest.entrySet()) {
-            targetQLs.put(target.getKey(), target.getValue().getQualityLevel());
+            selected.put(target.getKey(), target.getValue().getQualityLevel());
+        }
+        if (!selected.equals(targetQLs)) {
+            targetQLs = selected;
+            quotes.clear();
         }
     }
 
     @Override
     public void balance() {
+        trade.startBatch();
+        try {
+            balancePass();
+        } finally {
+            trade.endBatch();
+        }
+    }
+
+    // Must be flushed before agreeing, as flushing marks both sides as not satisfied.
+    private void setSatisfied() {
+        trade.endBatch();
+        trade.setSatisfied(creature, true, trade.getCurrentCounter());
+    }
+
+    private void balancePass() {
         Creature player = trade.creatureOne;
-        TradingWindow jobDetailsWindow = trade.getCreatureOneRequestWindow();
+        CrafterTradingWindow jobDetailsWindow = trade.getCreatureOneRequestWindow();
         TradingWindow playerWindow = trade.getCreatureTwoRequestWindow();
 
         if (!balanced) {
             setOptions();
-            if (jobDetailsWindow.getItems().length == 0) {
+            if (jobDetailsWindow.size() == 0) {
                 for (Item item : playerWindow.getItems()) {
                     playerWindow.removeItem(item);
                     trade.getTradingWindow(2).addItem(item);
                 }
-                trade.setSatisfied(creature, true, trade.getCurrentCounter());
+                setSatisfied();
                 balanced = true;
                 return;
             }
@@ -310,7 +474,7 @@ public class CrafterTradeHandler extends TradeHandler {
                     if (item.isCoin()) {
                         money += Economy.getValueFor(item.getTemplateId());
                     } else {
-                        cost += getPriceForImproveOption(item, getTargetQL(item));
+                        cost += getTraderBuyPriceForItem(item);
                         if (mailWhenDone)
                             cost += CrafterMod.mailPrice();
                     }
@@ -329,7 +493,7 @@ public class CrafterTradeHandler extends TradeHandler {
                     }
                 }
                 trade.setMoneyAdded(cost);
-                trade.setSatisfied(creature, true, trade.getCurrentCounter());
+                setSatisfied();
                 balanced = true;
             } else if (donating) {
                 for (Item item : playerWindow.getItems()) {
@@ -339,7 +503,7 @@ public class CrafterTradeHandler extends TradeHandler {
                     }
                 }
                 player.getCommunicator().sendSafeServerMessage(creature.getName() + " says 'If you wish to donate these items, I'll be happy to take them to improve my skills.'");
-                trade.setSatisfied(creature, true, trade.getCurrentCounter());
+                setSatisfied();
                 balanced = true;
             }
         }
@@ -352,11 +516,21 @@ public class CrafterTradeHandler extends TradeHandler {
         }
     }
 
+    public WorkBook.JobBatch createJobBatch(Creature customer, Item[] items) {
+        WorkBook.JobBatch batch = workBook.newBatch();
+        for (Item item : items) {
+            if (item.isCoin())
+                continue;
+            if (donating)
+                batch.addDonation(item);
+            else
+                batch.addJob(customer.getWurmId(), item, getTargetQL(item), mailWhenDone, getTraderBuyPriceForItem(item) + (mailWhenDone ? CrafterMod.mailPrice() : 0));
+        }
+        return batch;
+    }
+
     public float getTargetQL(Item item) {
-        Float targetQL = targetQLs.get(MethodsItems.getImproveSkill(item));
-        if (targetQL == null)
-            return 0;
-        return targetQL;
+        return getQuote(item).targetQL;
     }
 
     public boolean isMailOnDone() {
@@ -11,23 +11,18 @@ import com.wurmonline.server.creatures.Creature;
 import com.wurmonline.server.economy.Economy;
 import com.wurmonline.server.economy.Shop;
 import com.wurmonline.server.players.Player;
-import mod.wurmunlimited.npcs.CrafterMod;
 import mod.wurmunlimited.npcs.CrafterTemplate;
-import mod.wurmunlimited.npcs.Job;
 import mod.wurmunlimited.npcs.WorkBook;
 
-import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class CrafterTrade extends Trade {
     private static final Logger logger = Logger.getLogger(CrafterTrade.class.getName());
-    private final TradingWindow creatureOneOfferWindow;
-    private final TradingWindow creatureTwoOfferWindow;
-    private final TradingWindow creatureOneRequestWindow;
-    private final TradingWindow creatureTwoRequestWindow;
+    private final CrafterTradingWindow creatureOneOfferWindow;
+    private final CrafterTradingWindow creatureTwoOfferWindow;
+    private final CrafterTradingWindow creatureOneRequestWindow;
+    private final CrafterTradingWindow creatureTwoRequestWindow;
     private boolean creatureOneSatisfied = false;
     private boolean creatureTwoSatisfied = false;
     private int currentCounter = -1;
@@ -65,7 +60,7 @@ public class CrafterTrade extends Trade {
     }
 
     @Override
-    public TradingWindow getTradingWindow(long id) {
+    public CrafterTradingWindow getTradingWindow(long id) {
         switch ((int)id) {
             case 1:
                 return this.creatureTwoOfferWindow;
@@ -104,6 +99,29 @@ public class CrafterTrade extends Trade {
 
     }
 
+    // Holds back window messages until endBatch, so a pass over the windows sends each item's final place once and
+    // tells the traders the trade changed once.
+    public void startBatch() {
+        for (long id = 1; id <= 4; ++id)
+            getTradingWindow(id).startBatch();
+    }
+
+    public void endBatch() {
+        for (long id = 1; id <= 4; ++id)
+            getTradingWindow(id).flushBatchedRemovals();
+        boolean changed = false;
+        for (long id = 1; id <= 4; ++id) {
+            CrafterTradingWindow window = getTradingWindow(id);
+            if (window.flushBatch())
+                changed |= window.resetSatisfied();
+        }
+        if (changed) {
+            int c = getNextTradeId();
+            creatureOne.getCommunicator().sendTradeChanged(c);
+            creatureTwo.getCommunicator().sendTradeChanged(c);
+        }
+    }
+
     @Override
     int getNextTradeId() {
         return ++this.currentCounter;
@@ -135,10 +153,7 @@ public class CrafterTrade extends Trade {
 
 
                     CrafterTradeHandler handler = (CrafterTradeHandler)creatureTwo.getTradeHandler();
-                    List<String> requiredSpace = Stream.of(getTradingWindow(4).getItems()).filter(i -> !i.isCoin()).map(i -> Job.toString(creatureOne.getWurmId(),
-                            i, handler.getTargetQL(i), handler.isMailOnDone(), handler.getTraderBuyPriceForItem(i) + (handler.isMailOnDone() ? CrafterMod.mailPrice() : 0), false))
-                    .collect(Collectors.toList());
-                    if (!workBook.hasEnoughSpaceFor(requiredSpace)) {
+                    if (!workBook.hasEnoughSpaceFor(handler.createJobBatch(creatureOne, getTradingWindow(4).getItems()))) {
                         creatureOne.getCommunicator().sendNormalServerMessage(creatureTwo.getName() + " says, 'I already have too many orders to be working on.  Sorry for the inconvenience.'", (byte)3);
                         return false;
                     }
@@ -265,12 +280,12 @@ public class CrafterTrade extends Trade {
     }
 
     @Override
-    public TradingWindow getCreatureOneRequestWindow() {
+    public CrafterTradingWindow getCreatureOneRequestWindow() {
         return this.creatureOneRequestWindow;
     }
 
     @Override
-    public TradingWindow getCreatureTwoRequestWindow() {
+    public CrafterTradingWindow getCreatureTwoRequestWindow() {
         return this.creatureTwoRequestWindow;
     }
 
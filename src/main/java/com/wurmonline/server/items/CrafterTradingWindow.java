@@ -20,7 +20,6 @@ import mod.wurmunlimited.npcs.CrafterMod;
 import mod.wurmunlimited.npcs.CrafterTemplate;
 import mod.wurmunlimited.npcs.WorkBook;
 
-import java.io.IOException;
 import java.util.*;
 import java.util.logging.*;
 
@@ -30,7 +29,20 @@ public class CrafterTradingWindow extends TradingWindow implements MiscConstants
     private final boolean offer;
     private final long wurmId;
     private Set<Item> items;
+    // Built from items when first read after a change, and shared by every read until the next change.  Balancing reads
+    // the windows many times per pass, so this saves copying the set each time.  Never modified once built, so callers
+    // may keep iterating one whilst moving items between windows.
+    private Item[] snapshot = null;
+    private List<Item> snapshotList = null;
+    private Item[] allSnapshot = null;
+    private static final Item[] noItems = new Item[0];
     private final Trade trade;
+    // Whilst batching, messages to the traders are held back until flushBatch, which sends where each item ended up
+    // rather than every step in between.
+    private boolean batching = false;
+    private boolean changedInBatch = false;
+    // Item to whether it was in this window before it was first touched in the batch.
+    private final Map<Item, Boolean> batched = new LinkedHashMap<>();
     private static final Logger logger = Logger.getLogger(CrafterTradingWindow.class.getName());
     private static final Map<String, Logger> loggers = new HashMap<>();
 
@@ -61,6 +73,12 @@ public class CrafterTradingWindow extends TradingWindow implements MiscConstants
         }
     }
 
+    private void logReceived(long shopId, Item item) {
+        Logger shopLogger = getLogger(shopId);
+        if (shopLogger.isLoggable(Level.INFO))
+            shopLogger.log(Level.INFO, "{0} received {1} {2}, id: {3}, QL: {4}", new Object[] { this.watcher.getName(), MaterialUtilities.getMaterialString(item.getMaterial()), item.getName(), String.valueOf(item.getWurmId()), String.valueOf(item.getQualityLevel()) });
+    }
+
     private static Logger getLogger(long wurmId) {
         String name = "worker" + wurmId;
         Logger personalLogger = loggers.get(name);
@@ -73,13 +91,7 @@ public class CrafterTradingWindow extends TradingWindow implements MiscConstants
                 personalLogger.removeHandler(h[i]);
             }
 
-            try {
-                FileHandler fh = new FileHandler(name + ".log", 0, 1, true);
-                fh.setFormatter(new SimpleFormatter());
-                personalLogger.addHandler(fh);
-            } catch (IOException var6) {
-                Logger.getLogger(name).log(Level.WARNING, name + ":no redirection possible!");
-            }
+            personalLogger.addHandler(CrafterMod.getLogFiles().getHandler(name + ".log", true));
 
             loggers.put(name, personalLogger);
         }
@@ -155,9 +167,28 @@ public class CrafterTradingWindow extends TradingWindow implements MiscConstants
         return this.wurmId;
     }
 
+    // The returned array is shared, so must not be modified.
     @Override
     public Item[] getItems() {
-        return this.items != null ? this.items.toArray(new Item[0]) : new Item[0];
+        if (snapshot == null)
+            snapshot = this.items != null && !this.items.isEmpty() ? this.items.toArray(noItems) : noItems;
+        return snapshot;
+    }
+
+    public List<Item> getItemList() {
+        if (snapshotList == null)
+            snapshotList = Collections.unmodifiableList(Arrays.asList(getItems()));
+        return snapshotList;
+    }
+
+    public int size() {
+        return this.items != null ? this.items.size() : 0;
+    }
+
+    private void itemsChanged() {
+        snapshot = null;
+        snapshotList = null;
+        allSnapshot = null;
     }
 
     private void removeExistingContainedItems(Item item) {
@@ -174,10 +205,13 @@ public class CrafterTradingWindow extends TradingWindow implements MiscConstants
 
     }
 
+    // The returned array is shared, so must not be modified.
     @Override
     public Item[] getAllItems() {
-        if (this.items == null) {
-            return new Item[0];
+        if (allSnapshot != null) {
+            return allSnapshot;
+        } else if (this.items == null) {
+            return noItems;
         } else {
             Set<Item> toRet = new HashSet<>();
 
@@ -192,7 +226,8 @@ public class CrafterTradingWindow extends TradingWindow implements MiscConstants
                 }
             }
 
-            return toRet.toArray(new Item[0]);
+            allSnapshot = toRet.toArray(noItems);
+            return allSnapshot;
         }
     }
 
@@ -219,34 +254,43 @@ public class CrafterTradingWindow extends TradingWindow implements MiscConstants
             } catch (NoSuchItemException ignored) {}
 
             this.items.add(item);
+            this.itemsChanged();
             this.addToTrade(item);
-            if (item == parent || parent.isViewableBy(this.windowOwner)) {
-                if (!this.windowOwner.isPlayer()) {
-                    this.windowOwner.getCommunicator().sendAddToInventory(item, this.wurmId, parent.tradeWindow == this ? parent.getWurmId() : 0L, 0);
-                } else if (!this.watcher.isPlayer()) {
-                    this.windowOwner.getCommunicator().sendAddToInventory(item, this.wurmId, parent.tradeWindow == this ? parent.getWurmId() : 0L, this.watcher.getTradeHandler().getTraderBuyPriceForItem(item));
-                } else {
-                    this.windowOwner.getCommunicator().sendAddToInventory(item, this.wurmId, parent.tradeWindow == this ? parent.getWurmId() : 0L, item.getPrice());
-                }
-            }
+            if (batching)
+                batched.putIfAbsent(item, false);
+            else
+                sendAdd(item, parent);
+        }
 
-            if (item == parent || parent.isViewableBy(this.watcher)) {
-                if (!this.watcher.isPlayer()) {
-                    this.watcher.getCommunicator().sendAddToInventory(item, this.wurmId, parent.tradeWindow == this ? parent.getWurmId() : 0L, 0);
-                } else if (!this.windowOwner.isPlayer()) {
-                    this.watcher.getCommunicator().sendAddToInventory(item, this.wurmId, parent.tradeWindow == this ? parent.getWurmId() : 0L, this.windowOwner.getTradeHandler().getTraderSellPriceForItem(item, this));
-                } else {
-                    this.watcher.getCommunicator().sendAddToInventory(item, this.wurmId, parent.tradeWindow == this ? parent.getWurmId() : 0L, item.getPrice());
-                }
+        this.tradeChanged();
+    }
+
+    private void sendAdd(Item item, Item parent) {
+        if (item == parent || parent.isViewableBy(this.windowOwner)) {
+            if (!this.windowOwner.isPlayer()) {
+                this.windowOwner.getCommunicator().sendAddToInventory(item, this.wurmId, parent.tradeWindow == this ? parent.getWurmId() : 0L, 0);
+            } else if (!this.watcher.isPlayer()) {
+                this.windowOwner.getCommunicator().sendAddToInventory(item, this.wurmId, parent.tradeWindow == this ? parent.getWurmId() : 0L, this.watcher.getTradeHandler().getTraderBuyPriceForItem(item));
+            } else {
+                this.windowOwner.getCommunicator().sendAddToInventory(item, this.wurmId, parent.tradeWindow == this ? parent.getWurmId() : 0L, item.getPrice());
             }
         }
 
-        this.tradeChanged();
+        if (item == parent || parent.isViewableBy(this.watcher)) {
+            if (!this.watcher.isPlayer()) {
+                this.watcher.getCommunicator().sendAddToInventory(item, this.wurmId, parent.tradeWindow == this ? parent.getWurmId() : 0L, 0);
+            } else if (!this.windowOwner.isPlayer()) {
+                this.watcher.getCommunicator().sendAddToInventory(item, this.wurmId, parent.tradeWindow == this ? parent.getWurmId() : 0L, this.windowOwner.getTradeHandler().getTraderSellPriceForItem(item, this));
+            } else {
+                this.watcher.getCommunicator().sendAddToInventory(item, this.wurmId, parent.tradeWindow == this ? parent.getWurmId() : 0L, item.getPrice());
+            }
+        }
     }
 
     private void addToTrade(Item item) {
         if (item.tradeWindow != this) {
             item.setTradeWindow(this);
+            this.itemsChanged();
         }
 
         for (Item lIt : item.getItems()) {
@@ -255,15 +299,22 @@ public class CrafterTradingWindow extends TradingWindow implements MiscConstants
     }
 
     private void removeFromTrade(Item item, boolean noSwap) {
-        this.windowOwner.getCommunicator().sendRemoveFromInventory(item, this.wurmId);
-        this.watcher.getCommunicator().sendRemoveFromInventory(item, this.wurmId);
+        if (batching)
+            batched.putIfAbsent(item, true);
+        else
+            sendRemove(item);
         if (noSwap && item.isCoin()) {
             if (item.getOwnerId() == -10L) {
                 Economy.getEconomy().returnCoin(item, "Notrade", true);
             }
         }
         item.setTradeWindow(null);
+        this.itemsChanged();
+    }
 
+    private void sendRemove(Item item) {
+        this.windowOwner.getCommunicator().sendRemoveFromInventory(item, this.wurmId);
+        this.watcher.getCommunicator().sendRemoveFromInventory(item, this.wurmId);
     }
 
     @Override
@@ -271,6 +322,7 @@ public class CrafterTradingWindow extends TradingWindow implements MiscConstants
         if (this.items != null && item.tradeWindow == this) {
             this.removeExistingContainedItems(item);
             this.items.remove(item);
+            this.itemsChanged();
             this.removeFromTrade(item, true);
             this.tradeChanged();
         }
@@ -280,28 +332,47 @@ public class CrafterTradingWindow extends TradingWindow implements MiscConstants
     @Override
     public void updateItem(Item item) {
         if (this.items != null && item.tradeWindow == this) {
-            if (!this.windowOwner.isPlayer()) {
-                this.windowOwner.getCommunicator().sendUpdateInventoryItem(item, this.wurmId, 0);
-            } else if (!this.watcher.isPlayer()) {
-                this.windowOwner.getCommunicator().sendUpdateInventoryItem(item, this.wurmId, this.watcher.getTradeHandler().getTraderBuyPriceForItem(item));
-            } else {
-                this.windowOwner.getCommunicator().sendUpdateInventoryItem(item, this.wurmId, item.getPrice());
-            }
+            if (batching)
+                batched.putIfAbsent(item, true);
+            else
+                sendUpdate(item);
+            this.tradeChanged();
+        }
 
-            if (!this.watcher.isPlayer()) {
-                this.watcher.getCommunicator().sendUpdateInventoryItem(item, this.wurmId, 0);
-            } else if (!this.windowOwner.isPlayer()) {
-                this.watcher.getCommunicator().sendUpdateInventoryItem(item, this.wurmId, this.windowOwner.getTradeHandler().getTraderSellPriceForItem(item, this));
-            } else {
-                this.watcher.getCommunicator().sendUpdateInventoryItem(item, this.wurmId, item.getPrice());
-            }
+    }
 
-            this.tradeChanged();
+    private void sendUpdate(Item item) {
+        if (!this.windowOwner.isPlayer()) {
+            this.windowOwner.getCommunicator().sendUpdateInventoryItem(item, this.wurmId, 0);
+        } else if (!this.watcher.isPlayer()) {
+            this.windowOwner.getCommunicator().sendUpdateInventoryItem(item, this.wurmId, this.watcher.getTradeHandler().getTraderBuyPriceForItem(item));
+        } else {
+            this.windowOwner.getCommunicator().sendUpdateInventoryItem(item, this.wurmId, item.getPrice());
         }
 
+        if (!this.watcher.isPlayer()) {
+            this.watcher.getCommunicator().sendUpdateInventoryItem(item, this.wurmId, 0);
+        } else if (!this.windowOwner.isPlayer()) {
+            this.watcher.getCommunicator().sendUpdateInventoryItem(item, this.wurmId, this.windowOwner.getTradeHandler().getTraderSellPriceForItem(item, this));
+        } else {
+            this.watcher.getCommunicator().sendUpdateInventoryItem(item, this.wurmId, item.getPrice());
+        }
     }
 
     private void tradeChanged() {
+        if (batching) {
+            changedInBatch = true;
+            return;
+        }
+        if (resetSatisfied()) {
+            int c = this.trade.getNextTradeId();
+            this.windowOwner.getCommunicator().sendTradeChanged(c);
+            this.watcher.getCommunicator().sendTradeChanged(c);
+        }
+    }
+
+    // Returns true if the traders should be told the trade changed.
+    boolean resetSatisfied() {
         if (this.wurmId == 2L && !this.trade.creatureTwo.isPlayer()) {
             this.trade.setCreatureTwoSatisfied(false);
         }
@@ -309,11 +380,51 @@ public class CrafterTradingWindow extends TradingWindow implements MiscConstants
         if (this.wurmId == 3L || this.wurmId == 4L) {
             this.trade.setCreatureOneSatisfied(false);
             this.trade.setCreatureTwoSatisfied(false);
-            int c = this.trade.getNextTradeId();
-            this.windowOwner.getCommunicator().sendTradeChanged(c);
-            this.watcher.getCommunicator().sendTradeChanged(c);
+            return true;
         }
+        return false;
+    }
+
+    void startBatch() {
+        batching = true;
+    }
 
+    // Items move between windows, so the trade sends the removals for every window before anything else.
+    void flushBatchedRemovals() {
+        batching = false;
+        Iterator<Map.Entry<Item, Boolean>> iterator = batched.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Item, Boolean> entry = iterator.next();
+            if (entry.getValue() && entry.getKey().tradeWindow != this) {
+                sendRemove(entry.getKey());
+                iterator.remove();
+            }
+        }
+    }
+
+    // Sends the rest of the held back messages.  Returns true if anything in the window changed, the trade is left for
+    // the caller to reset and announce.
+    boolean flushBatch() {
+        flushBatchedRemovals();
+        for (Map.Entry<Item, Boolean> entry : batched.entrySet()) {
+            Item item = entry.getKey();
+            boolean wasInWindow = entry.getValue();
+            boolean inWindow = item.tradeWindow == this;
+            if (!wasInWindow && inWindow) {
+                Item parent = item;
+                try {
+                    parent = item.getParent();
+                } catch (NoSuchItemException ignored) {}
+                sendAdd(item, parent);
+            } else if (inWindow) {
+                sendUpdate(item);
+            }
+        }
+        batched.clear();
+
+        boolean changed = changedInBatch;
+        changedInBatch = false;
+        return changed;
     }
 
     @Override
@@ -437,6 +548,19 @@ public class CrafterTradingWindow extends TradingWindow implements MiscConstants
             }
 
             if (this.items != null) {
+                List<Item> collected = new ArrayList<>();
+                // Window 4 - Every job from the trade is written to the work book at once.
+                if (!(this.watcher instanceof Player)) {
+                    try {
+                        workBook.addJobs(handler.createJobBatch(windowOwner, getItems()));
+                    } catch (WorkBook.WorkBookFull e) {
+                        // This should never happen because it should be cleared by CrafterTrade.makeTrade().
+                        windowOwner.getCommunicator().sendAlertServerMessage("An error occurred with the order.  Please report.");
+                        logger.warning("Items (" + items.size() + ") with Price Charged(" + trade.getMoneyAdded() + ") could not be added to Work Book, and player money was still taken.  This should never happen, please report.");
+                        e.printStackTrace();
+                    }
+                }
+
                 for (Item item : items) {
                     this.removeExistingContainedItems(item);
                     this.removeFromTrade(item, false);
@@ -464,7 +588,7 @@ public class CrafterTradingWindow extends TradingWindow implements MiscConstants
                     // Window 4
                     if (!(this.watcher instanceof Player)) {
                         if (coin) {
-                            getLogger(shop.getWurmId()).log(Level.INFO, this.watcher.getName() + " received " + MaterialUtilities.getMaterialString(item.getMaterial()) + " " + item.getName() + ", id: " + item.getWurmId() + ", QL: " + item.getQualityLevel());
+                            logReceived(shop.getWurmId(), item);
                             if (this.windowOwner.getWurmId() == shop.getOwnerId()) {
                                 inventory.insertItem(item);
                                 moneyAdded += Economy.getValueFor(item.getTemplateId());
@@ -472,20 +596,8 @@ public class CrafterTradingWindow extends TradingWindow implements MiscConstants
                                 Economy.getEconomy().returnCoin(item, "CrafterTrade");
                             }
                         } else {
-                            try {
-                                if (!handler.isDonating()) {
-                                    workBook.addJob(windowOwner.getWurmId(), item, handler.getTargetQL(item), handler.isMailOnDone(), watcher.getTradeHandler().getTraderBuyPriceForItem(item) + (handler.isMailOnDone() ? CrafterMod.mailPrice() : 0));
-                                } else {
-                                    workBook.addDonation(item);
-                                }
-                            } catch (WorkBook.WorkBookFull e) {
-                                // This should never happen because it should be cleared by CrafterTrade.makeTrade().
-                                windowOwner.getCommunicator().sendAlertServerMessage("An error occurred with the order.  Please report.");
-                                logger.warning("Item WurmId(" + item.getWurmId() + ") Price Charged(" + watcher.getTradeHandler().getTraderBuyPriceForItem(item) + (handler.isMailOnDone() ? CrafterMod.mailPrice() : 0) + ") could not be added to Work Book, and player money was still taken.  This should never happen, please report.");
-                                e.printStackTrace();
-                            }
                             inventory.insertItem(item);
-                            getLogger(shop.getWurmId()).log(Level.INFO, this.watcher.getName() + " received " + MaterialUtilities.getMaterialString(item.getMaterial()) + " " + item.getName() + ", id: " + item.getWurmId() + ", QL: " + item.getQualityLevel());
+                            logReceived(shop.getWurmId(), item);
                         }
                     // Window 3
                     } else {
@@ -494,13 +606,14 @@ public class CrafterTradingWindow extends TradingWindow implements MiscConstants
                         if (coin) {
                             if (shop.getOwnerId() == this.watcher.getWurmId()) {
                                 moneyLost += Economy.getValueFor(item.getTemplateId());
-                                getLogger(shop.getWurmId()).log(Level.INFO, this.watcher.getName() + " received " + MaterialUtilities.getMaterialString(item.getMaterial()) + " " + item.getName() + ", id: " + item.getWurmId() + ", QL: " + item.getQualityLevel());
+                                logReceived(shop.getWurmId(), item);
                             }
                         } else {
-                            workBook.removeJob(item);
+                            collected.add(item);
                         }
                     }
                 }
+                workBook.removeJobs(collected);
             }
 
             this.windowOwner.getCommunicator().sendNormalServerMessage("The trade was completed successfully.");
@@ -566,7 +679,7 @@ public class CrafterTradingWindow extends TradingWindow implements MiscConstants
     @Override
     void endTrade() {
         if (this.items != null) {
-            for (Item item : items.toArray(new Item[0])) {
+            for (Item item : getItems()) {
                 this.removeExistingContainedItems(item);
                 this.items.remove(item);
                 this.removeFromTrade(item, true);
@@ -574,6 +687,7 @@ public class CrafterTradingWindow extends TradingWindow implements MiscConstants
         }
 
         this.items = null;
+        this.itemsChanged();
     }
 }
 
@@ -59,7 +59,7 @@ public class CrafterManagementQuestion extends CrafterQuestionExtension {
                                  .text("Current jobs - " + workBook.todo())
                                  .text("Awaiting collection - " + workBook.done())
                                  .If(workBook.isForgeAssigned(),
-                                         b -> b.text("Forge - Assigned"),
+                                         b -> b.text(workBook.getForges().size() == 1 ? "Forge - Assigned" : "Forges - " + workBook.getForges().size() + " Assigned"),
                                          b -> b.text("Forge - Not Assigned").error())
                                  .If(CrafterMod.getPaymentOption() == CrafterMod.PaymentOption.for_owner,
                                          b -> b.text("Money to collect - " + (shop.getMoney() == 0 ? "Nothing" : new Change(shop.getMoney()).getChangeShortString())))
@@ -91,10 +91,13 @@ public class CrafterManagementQuestion extends CrafterQuestionExtension {
                 }
 
                 try {
-                    for (Job job : WorkBook.getWorkBookFromWorker(crafter)) {
+                    WorkBook workBook = WorkBook.getWorkBookFromWorker(crafter);
+                    workBook.flush();
+                    for (Job job : workBook) {
                         job.mailToCustomer();
                         job.refundCustomer();
                     }
+                    workBook.deleteJobStore();
                 } catch (WorkBook.NoWorkBookOnWorker e) {
                     logger.warning("Could not find Work Book while dismissing Crafter, customers were not compensated.");
                     e.printStackTrace();
@@ -103,7 +106,7 @@ public class CrafterManagementQuestion extends CrafterQuestionExtension {
                     e.printStackTrace();
                 }
 
-                CrafterAI.assignedForges.remove(crafter);
+                CrafterAI.removeCrafter(crafter);
                 crafter.destroy();
             } else
                 responder.getCommunicator().sendNormalServerMessage(crafter.getName() + " is trading.  Try later.");
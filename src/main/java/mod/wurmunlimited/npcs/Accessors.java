@@ -0,0 +1,156 @@
+package mod.wurmunlimited.npcs;
+
+import com.wurmonline.server.behaviours.MethodsItems;
+import com.wurmonline.server.creatures.*;
+import com.wurmonline.server.economy.Economy;
+import com.wurmonline.server.economy.Shop;
+import com.wurmonline.server.items.CrafterTrade;
+import com.wurmonline.server.items.Item;
+import com.wurmonline.server.items.TradingWindow;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Private server fields and methods used by the hooks and AI, looked up once instead of on every call.  Built the
+// first time they are used rather than in init, as looking up members then would load the classes before they are hooked.
+class Accessors {
+    private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static class Handles {
+        private static final MethodHandle setFire;
+        private static final MethodHandle communicatorCreature;
+        private static final MethodHandle shopsLock;
+        private static final MethodHandle shops;
+        private static final MethodHandle getTradeHandler;
+        private static final MethodHandle setTradeHandler;
+        private static final MethodHandle newCrafterTradeHandler;
+        private static final MethodHandle windowOwner;
+        private static final MethodHandle watcher;
+
+        static {
+            try {
+                Method method = MethodsItems.class.getDeclaredMethod("setFire", Creature.class, Item.class);
+                method.setAccessible(true);
+                setFire = MethodHandles.lookup().unreflect(method).asType(MethodType.methodType(void.class, Creature.class, Item.class));
+                communicatorCreature = getter(CreatureCommunicator.class, "creature");
+                shopsLock = getter(Economy.class, "SHOPS_RW_LOCK");
+                shops = getter(Economy.class, "shops");
+                getTradeHandler = getter(Creature.class, "tradeHandler");
+                setTradeHandler = setter(Creature.class, "tradeHandler");
+                newCrafterTradeHandler = MethodHandles.lookup().findConstructor(CrafterTradeHandler.class, MethodType.methodType(void.class, Creature.class, CrafterTrade.class));
+                windowOwner = getter(TradingWindow.class, "windowowner");
+                watcher = getter(TradingWindow.class, "watcher");
+            } catch (NoSuchMethodException | NoSuchFieldException | IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    // Getters and setters all take and return Object so every call site has the same exact type, hence the (Object) casts
+    // on calls.  Static fields ignore the instance.
+    static MethodHandle getter(Class<?> owner, String name) throws NoSuchFieldException, IllegalAccessException {
+        Field field = owner.getDeclaredField(name);
+        field.setAccessible(true);
+        MethodHandle handle = MethodHandles.lookup().unreflectGetter(field);
+        if (Modifier.isStatic(field.getModifiers()))
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        return handle.asType(GETTER);
+    }
+
+    static MethodHandle setter(Class<?> owner, String name) throws NoSuchFieldException, IllegalAccessException {
+        Field field = owner.getDeclaredField(name);
+        field.setAccessible(true);
+        MethodHandle handle = MethodHandles.lookup().unreflectSetter(field);
+        if (Modifier.isStatic(field.getModifiers()))
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        return handle.asType(SETTER);
+    }
+
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException)
+            return (RuntimeException)t;
+        if (t instanceof Error)
+            throw (Error)t;
+        return new RuntimeException(t);
+    }
+
+    static void setFire(Creature creature, Item forge) {
+        try {
+            Handles.setFire.invokeExact(creature, forge);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Creature getCreature(CreatureCommunicator communicator) {
+        try {
+            return (Creature)(Object)Handles.communicatorCreature.invokeExact((Object)communicator);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static ReentrantReadWriteLock getShopsLock() {
+        try {
+            return (ReentrantReadWriteLock)(Object)Handles.shopsLock.invokeExact((Object)null);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<Long, Shop> getShops(Economy economy) {
+        try {
+            return (Map<Long, Shop>)(Object)Handles.shops.invokeExact((Object)economy);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static TradeHandler getTradeHandler(Creature creature) {
+        try {
+            return (TradeHandler)(Object)Handles.getTradeHandler.invokeExact((Object)creature);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static void setTradeHandler(Creature creature, TradeHandler handler) {
+        try {
+            Handles.setTradeHandler.invokeExact((Object)creature, (Object)handler);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static CrafterTradeHandler newCrafterTradeHandler(Creature crafter, CrafterTrade trade) {
+        try {
+            return (CrafterTradeHandler)Handles.newCrafterTradeHandler.invokeExact(crafter, trade);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Creature getWindowOwner(TradingWindow window) {
+        try {
+            return (Creature)(Object)Handles.windowOwner.invokeExact((Object)window);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Creature getWatcher(TradingWindow window) {
+        try {
+            return (Creature)(Object)Handles.watcher.invokeExact((Object)window);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+}
@@ -12,52 +12,65 @@ import com.wurmonline.server.items.*;
 import com.wurmonline.server.players.Player;
 import org.jetbrains.annotations.NotNull;
 
-import java.lang.reflect.Field;
 import java.util.*;
+import java.util.function.BiFunction;
 import java.util.logging.Logger;
 
 public class CrafterAI extends CreatureAI {
     private static final Logger logger = Logger.getLogger(CrafterAI.class.getName());
-    static final Set<Creature> allCrafters = new HashSet<>();
     @SuppressWarnings("WeakerAccess")
-    public static final Map<Creature, Item> assignedForges = new HashMap<>();
-    private Field tradeHandler;
-
-    public CrafterAI() {
-        try {
-            tradeHandler = Creature.class.getDeclaredField("tradeHandler");
-        } catch (NoSuchFieldException e) {
-            throw new RuntimeException(e);
-        }
-        tradeHandler.setAccessible(true);
-    }
+    public static final CrafterRegistry registry = new CrafterRegistry();
+    static final CrafterTickScheduler tickScheduler = new CrafterTickScheduler(CrafterAI::work, CrafterMod::getCrafterTickBudgetNanos);
 
     @Override
     public boolean pollCreature(Creature c, long delta) {
         boolean isDead = super.pollCreature(c, delta);
-        try {
-            if (tradeHandler != null) {
-                CrafterTradeHandler handler = (CrafterTradeHandler)tradeHandler.get(c);
-                if (handler != null)
-                    handler.balance();
-            }
-        } catch (IllegalAccessException e) {
-            tradeHandler = null;
-            logger.warning("TradeHandler field not found, this really shouldn't happen.  Future warnings will be suppressed.");
-            e.printStackTrace();
+        // The trade handler only exists whilst trading.
+        if (c.isTrading()) {
+            TradeHandler handler = Accessors.getTradeHandler(c);
+            if (handler instanceof CrafterTradeHandler)
+                ((CrafterTradeHandler)handler).balance();
         }
 
         if (!isDead && !c.isTrading() && !c.isFighting()) {// TODO - Stamina, including letting crafter put items in forge whilst waiting for stamina. && c.getStatus().calcStaminaPercent() == 100) {
+            CrafterAIData data = (CrafterAIData)c.getCreatureAIData();
+            WorkBook workBook = data.getWorkBook();
+            // Parked crafters have nothing to do, so are skipped before looking for a current action.
+            if (workBook == null || data.isParked(System.currentTimeMillis()))
+                return isDead;
             try {
                 Action action = c.getCurrentAction();
-                CrafterMod.getCrafterLogger(c).info(action.getActionString());
+                CrafterLog.info(CrafterMod.getCrafterLogger(c), "{0}", action.getActionString());
             } catch (NoSuchActionException ignored) {
-                ((CrafterAIData)c.getCreatureAIData()).sendNextAction();
+                tickScheduler.request(c);
             }
         }
         return isDead;
     }
 
+    // Called when a crafter is dismissed or destroyed, may be called more than once.
+    public static void removeCrafter(Creature crafter) {
+        registry.unregister(crafter);
+        tickScheduler.remove(crafter);
+        CrafterTradeHandler.removeOptionItems(crafter);
+    }
+
+    // Run by the tick scheduler, the crafter may have started trading or been dismissed since it was queued.
+    private static void work(Creature c) {
+        if (c.isDead() || c.isTrading() || c.isFighting())
+            return;
+        CrafterAIData data = (CrafterAIData)c.getCreatureAIData();
+        WorkBook workBook = data.getWorkBook();
+        if (workBook == null)
+            return;
+        workBook.startDeferredSaves();
+        try {
+            data.sendNextAction();
+        } finally {
+            workBook.endDeferredSaves();
+        }
+    }
+
     @Override
     protected boolean pollMovement(@NotNull Creature creature, long delta) {
         CrafterAIData data = (CrafterAIData)creature.getCreatureAIData();
@@ -96,11 +109,11 @@ public class CrafterAI extends CreatureAI {
     public void creatureCreated(@NotNull Creature creature) {
     }
 
-    static void sendCrafterStatusTo(Player player) {
-        for (Creature crafter : allCrafters) {
-            String status = ((CrafterAIData)crafter.getCreatureAIData()).getStatusFor(player);
-            if (status != null) {
-                Message mess = new Message(player, (byte)3, "Crafters", "<" + crafter.getName() + "> " + status);
+    static void sendCrafterMessagesTo(Player player, BiFunction<CrafterAIData, Player, String> getMessage) {
+        for (Creature crafter : registry.getCrafters()) {
+            String message = getMessage.apply((CrafterAIData)crafter.getCreatureAIData(), player);
+            if (message != null) {
+                Message mess = new Message(player, (byte)3, "Crafters", "<" + crafter.getName() + "> " + message);
                 mess.setReceiver(player.getWurmId());
                 Server.getInstance().addMessage(mess);
             }
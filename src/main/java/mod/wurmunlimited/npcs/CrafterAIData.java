@@ -23,37 +23,40 @@ import com.wurmonline.shared.constants.ItemMaterials;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.logging.Logger;
 
 public class CrafterAIData extends CreatureAIData {
     private Logger logger = Logger.getLogger(CrafterAIData.class.getName());
     // glowingFromTheHeat is 3500.
     static final short targetTemperature = 4000;
+    // Forges are checked at least this often whilst waiting for items to heat, so they can be re-lit if they go out.
+    private static final long heatingCheckInterval = TimeConstants.SECOND_MILLIS * 10;
     private WorkBook workbook;
     private Creature crafter;
     private boolean atWorkLocation;
     private PathTile workLocation;
     private final Map<Integer, Item> tools = new HashMap<>();
+    private final JobScheduler scheduler = new JobScheduler();
+    private boolean preHeatNeeded = true;
+    // Set when the crafter has nothing it can do, so polling is skipped until something changes.
+    private boolean parked = false;
+    private long parkedUntil;
+    private int parkedModCount;
     // Nearby equipment
-    private Item forge;
+    private final List<Item> forges = new ArrayList<>();
 
     @Override
     public void setCreature(@NotNull Creature crafter) {
         super.setCreature(crafter);
         this.crafter = crafter;
+        CrafterAI.registry.register(crafter);
         logger = CrafterMod.getCrafterLogger(crafter);
-        CrafterAI.allCrafters.add(crafter);
         if (crafter.getInventory().getItemCount() != 0)
             assignItems();
         if (workbook != null && workbook.isForgeAssigned()) {
-            float x = workbook.forge.getPosX();
-            float y = workbook.forge.getPosY();
+            float x = workbook.forges.get(0).getPosX();
+            float y = workbook.forges.get(0).getPosY();
             crafter.turnTo((float)(Math.toDegrees(Math.atan2(y - crafter.getPosY(), x - crafter.getPosX())) + 90.0f));
         }
     }
@@ -73,9 +76,10 @@ public class CrafterAIData extends CreatureAIData {
             logger.warning("No workbook found on creature (" + crafter.getWurmId() + ")");
             return;
         }
-        setForge(workbook.forge);
-        if (forge != null)
+        for (Item forge : workbook.getForges()) {
+            addForge(forge);
             Arrays.asList(forge.getItemsAsArray()).forEach(crafter.getInventory()::insertItem);
+        }
 
         for (Item item : crafter.getInventory().getItems()) {
             if (item.getOwnerId() != crafter.getWurmId() && item.getLastOwnerId() != crafter.getWurmId())
@@ -135,21 +139,56 @@ public class CrafterAIData extends CreatureAIData {
         }
     }
 
-    public Item getForge() {
-        return forge;
+    public List<Item> getForges() {
+        return Collections.unmodifiableList(forges);
     }
 
-    public void setForge(@Nullable Item item) {
-        forge = item;
-        workbook.setForge(item);
+    public void addForge(Item item) {
+        if (forges.contains(item))
+            return;
+        forges.add(item);
+        workbook.addForge(item);
+        CrafterAI.registry.assignForge(item, crafter);
+        preHeatNeeded = true;
+        wake();
+        if (forges.size() == 1)
+            setWorkLocation(item);
 
-        if (item == null) {
-            CrafterAI.assignedForges.remove(crafter);
-            workLocation = null;
+        try {
+            for (Creature creature : item.getWatchers()) {
+                creature.getCommunicator().sendCloseInventoryWindow(item.getWurmId());
+            }
+        } catch (NoSuchCreatureException ignored) {}
+    }
+
+    // Anything left in the forge is taken back by the crafter.
+    public void removeForge(Item item) {
+        int index = forges.indexOf(item);
+        if (index == -1)
             return;
+        forges.remove(index);
+        workbook.removeForge(item);
+        CrafterAI.registry.unassignForge(item);
+        for (Item inForge : item.getItemsAsArray()) {
+            crafter.getInventory().insertItem(inForge);
         }
+        preHeatNeeded = true;
+        wake();
+
+        if (forges.isEmpty())
+            workLocation = null;
+        else if (index == 0)
+            setWorkLocation(forges.get(0));
+    }
 
-        CrafterAI.assignedForges.put(crafter, item);
+    public void removeAllForges() {
+        for (Item forge : new ArrayList<>(forges)) {
+            removeForge(forge);
+        }
+    }
+
+    // The crafter stands by the first forge, the rest need to be within reach of it.
+    private void setWorkLocation(Item item) {
         TilePos pos = item.getTilePos();
         int tilePosX = Zones.safeTileX(pos.x);
         int tilePosY = Zones.safeTileY(pos.y);
@@ -167,12 +206,36 @@ public class CrafterAIData extends CreatureAIData {
             }
         }
         atWorkLocation = false;
+    }
 
-        try {
-            for (Creature creature : item.getWatchers()) {
-                creature.getCommunicator().sendCloseInventoryWindow(forge.getWurmId());
-            }
-        } catch (NoSuchCreatureException ignored) {}
+    @Nullable
+    private Item forgeContaining(Item item) {
+        for (Item forge : forges) {
+            if (forge.getItems().contains(item))
+                return forge;
+        }
+        return null;
+    }
+
+    // The forge with the fewest items that still has room, so heating is spread over every forge.
+    @Nullable
+    private Item forgeWithSpaceFor(Item item) {
+        Item best = null;
+        for (Item forge : forges) {
+            if ((best == null || forge.getItemCount() < best.getItemCount()) && forge.testInsertItem(item))
+                best = forge;
+        }
+        return best;
+    }
+
+    @Nullable
+    private Item leastUsedForge() {
+        Item best = null;
+        for (Item forge : forges) {
+            if (best == null || forge.getItemCount() < best.getItemCount())
+                best = forge;
+        }
+        return best;
     }
 
     void arrivedAtWorkLocation() {
@@ -215,113 +278,274 @@ public class CrafterAIData extends CreatureAIData {
         return null;
     }
 
-    void sendNextAction() {
-        if (workbook.todo() == 0)
-            return;
+    // Positions count every customer's jobs ahead of the player's.
+    String getQueueFor(Player player) {
+        StringBuilder sb = null;
+        int position = 0;
+        for (Job job : workbook) {
+            if (job.done)
+                continue;
+            ++position;
+            if (job.isCustomer(player)) {
+                sb = sb == null ? new StringBuilder("Your items - ") : sb.append(", ");
+                sb.append(job.item.getName()).append(" (position ").append(position).append(", ").append(job.state.description).append(")");
+            }
+        }
+        return sb == null ? null : sb.append(".").toString();
+    }
 
+    // Estimated from how long finished jobs waiting for collection took from being queued.
+    String getEtaFor(Player player) {
+        long total = 0;
+        int finished = 0;
+        boolean hasJobs = false;
         for (Job job : workbook) {
-            if (!job.isDone()) {
-                Item item = job.item;
-                if (!item.isRepairable()) {
-                    logger.info(item.getName() + " was not supposed to be accepted.  Returning and refunding.");
-                    returnErrorJob(job);
-                    continue;
+            if (job.done) {
+                // Times are not kept for finished jobs once the work book is reloaded.
+                if (job.stateSince > job.queuedAt) {
+                    total += job.stateSince - job.queuedAt;
+                    ++finished;
                 }
+            } else if (job.isCustomer(player)) {
+                hasJobs = true;
+            }
+        }
+        if (!hasJobs)
+            return null;
+        if (finished == 0)
+            return "I have not finished enough recently to say when your items will be ready.";
+
+        long average = total / finished;
+        long now = System.currentTimeMillis();
+        StringBuilder sb = new StringBuilder("Your items should be ready in about - ");
+        boolean first = true;
+        for (Job job : workbook) {
+            if (!job.done && job.isCustomer(player)) {
+                if (!first)
+                    sb.append(", ");
+                first = false;
+                long minutes = Math.max(1, (average - (now - job.queuedAt)) / TimeConstants.MINUTE_MILLIS);
+                sb.append(job.item.getName()).append(" ").append(minutes).append(minutes == 1 ? " minute" : " minutes");
+            }
+        }
+        return sb.append(".").toString();
+    }
 
-                if (item.getQualityLevel() >= job.targetQL || (job.isDonation() && (!workbook.getCrafterType().hasSkillToImprove(item) || item.getQualityLevel() >= workbook.getSkillCap()))) {
-                    workbook.setDone(job);
-                    if (forge != null && forge.getItems().contains(item))
-                        crafter.getInventory().insertItem(item);
-                    logger.info(item.getName() + " is done.");
-                    continue;
-                } else if (item.getDamage() > 0.0f) {
-                    try {
-                        BehaviourDispatcher.action(crafter, crafter.getCommunicator(), -10, item.getWurmId(), Actions.REPAIR);
-                        logger.info("Repairing " + item.getName());
-                    } catch (NoSuchPlayerException | NoSuchCreatureException | NoSuchItemException | NoSuchBehaviourException | NoSuchWallException | FailedException e) {
-                        logger.warning(crafter.getName() + " (" + crafter.getWurmId() + ") could not repair " + item.getName() + " (" + item.getWurmId() + ").  Reason follows:");
-                        e.printStackTrace();
-                        returnErrorJob(job);
-                    }
-                    return;
-                } else if (item.isMetal()) {
-                    if (forge == null)
-                        continue;
-
-                    if (!forge.isOnFire()) {
-                        try {
-                            Method setFire = MethodsItems.class.getDeclaredMethod("setFire", Creature.class, Item.class);
-                            setFire.setAccessible(true);
-                            setFire.invoke(null, crafter, forge);
-                            logger.info("Lighting forge");
-                        } catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-                            logger.warning("Could not light forge.  Reason follows:");
-                            e.printStackTrace();
-                        }
-                    }
-                    forge.setTemperature((short)10000);
-
-                    Item lump = tools.get(MethodsItems.getImproveTemplateId(item));
-                    if (lump != null && !forge.getItems().contains(lump)) {
-                        forge.insertItem(lump);
-                        logger.info("Put the " + lump.getName() + " in the forge");
-                    }
-                    if (!forge.getItems().contains(item)) {
-                        forge.insertItem(item);
-                        logger.info("Put the " + item.getName() + " in the forge");
-                    }
-
-                    if (item.getTemperature() < CrafterAIData.targetTemperature) {
-                        logger.info("Waiting for item to heat up.");
-                        continue;
-                    }
-                }
+    // Checked every tick before anything else so needs to stay cheap.  Jobs being added or removed, such as when a
+    // trade completes, wake the crafter, as does an item it is waiting on becoming hot enough.
+    boolean isParked(long now) {
+        if (!parked)
+            return false;
+        if (workbook.getModCount() != parkedModCount || now >= parkedUntil || scheduler.hasHeated()) {
+            parked = false;
+            return false;
+        }
+        return true;
+    }
 
-                int toolTemplateId = MethodsItems.getItemForImprovement(item.getMaterial(), item.creationState);
-                if (toolTemplateId == -10) {
-                    toolTemplateId = MethodsItems.getImproveTemplateId(item);
-                }
+    void wake() {
+        parked = false;
+    }
 
-                Item tool = tools.get(toolTemplateId);
-                if (tool == null) {
-                    try {
-                        tool = createMissingItem(toolTemplateId);
-                    } catch (NoSuchTemplateException | FailedException e) {
-                        logger.warning("Could not create required improving item (template id - " + toolTemplateId + ").  Reason follows:");
-                        e.printStackTrace();
-                        continue;
-                    }
-                }
+    // Nothing polls the crafter whilst it is parked, so changes held back by the save interval are written now.
+    private void park(long until) {
+        workbook.flush();
+        parked = true;
+        parkedUntil = until;
+        parkedModCount = workbook.getModCount();
+    }
 
-                if (tool.isCombine() && tool.isMetal()) {
-                    if (tool.getTemperature() >= CrafterAIData.targetTemperature) {
-                        crafter.getInventory().insertItem(tool);
-                    } else {
-                        logger.info("Waiting for lump to heat up.");
-                        continue;
-                    }
-                }
+    void sendNextAction() {
+        parked = false;
+        if (workbook.todo() == 0) {
+            park(Long.MAX_VALUE);
+            return;
+        }
 
-                repairTool(tool);
-                capSkills();
+        if (scheduler.update(workbook, !forges.isEmpty()))
+            preHeatNeeded = true;
+        if (!forges.isEmpty()) {
+            if (preHeatNeeded)
+                preHeat();
+            if (scheduler.isWaitingForHeat()) {
+                for (Item forge : forges)
+                    heatForge(forge);
+            }
+        }
+
+        // Each job is looked at no more than once per tick, waiting jobs are not looked at until they can progress.
+        int count = scheduler.readyCount();
+        for (int i = 0; i < count; ++i) {
+            Job job = scheduler.next();
+            if (job == null)
+                return;
+            if (carryOut(job, JobPlanner.decide(job, workbook)))
+                return;
+        }
 
+        if (scheduler.readyCount() == 0)
+            park(scheduler.isWaitingForHeat() ? System.currentTimeMillis() + heatingCheckInterval : Long.MAX_VALUE);
+    }
+
+    // Returns true if the crafter has started an action, so is busy until the next poll.
+    private boolean carryOut(Job job, JobPlanner.Decision decision) {
+        Item item = job.item;
+        switch (decision.step) {
+            case RETURN:
+                CrafterLog.info(logger, "{0} was not supposed to be accepted.  Returning and refunding.", item.getName());
+                returnErrorJob(job);
+                return false;
+            case DONE:
+                moveTo(job, JobState.DONE);
+                if (forgeContaining(item) != null) {
+                    crafter.getInventory().insertItem(item);
+                    preHeatNeeded = true;
+                }
+                CrafterLog.info(logger, "{0} is done, {1,number,#}s after it was queued.", item.getName(), (System.currentTimeMillis() - job.queuedAt) / 1000);
+                return false;
+            case REPAIR:
                 try {
-                    BehaviourDispatcher.action(crafter, crafter.getCommunicator(), tool.getWurmId(), item.getWurmId(), Actions.IMPROVE);
-                    logger.info("Improving " + item.getName() + " with " + tool.getName());
+                    BehaviourDispatcher.action(crafter, crafter.getCommunicator(), -10, item.getWurmId(), Actions.REPAIR);
+                    CrafterLog.info(logger, "Repairing {0}", item.getName());
+                    moveTo(job, JobState.REPAIRING);
+                    scheduler.keep(job);
                 } catch (NoSuchPlayerException | NoSuchCreatureException | NoSuchItemException | NoSuchBehaviourException | NoSuchWallException | FailedException e) {
-                    logger.warning(crafter.getName() + " (" + crafter.getWurmId() + ") could not improve " + item.getName() + " (" + item.getWurmId() + ") with " + tool.getName() + " (" + tool.getWurmId() + ").  Reason follows:");
+                    logger.warning(crafter.getName() + " (" + crafter.getWurmId() + ") could not repair " + item.getName() + " (" + item.getWurmId() + ").  Reason follows:");
                     e.printStackTrace();
                     returnErrorJob(job);
-                    continue;
                 }
-                return;
+                return true;
+            case HEAT:
+                if (placeInForge(job)) {
+                    logger.info("Waiting for item to heat up.");
+                    moveTo(job, JobState.HEATING);
+                    scheduler.waitFor(job, JobScheduler.Condition.HEATING_ITEM, item);
+                }
+                return false;
+        }
+
+        if (item.isMetal() && !placeInForge(job))
+            return false;
+
+        int toolTemplateId = decision.toolTemplateId;
+        Item tool = tools.get(toolTemplateId);
+        if (tool == null) {
+            try {
+                tool = createMissingItem(toolTemplateId);
+            } catch (NoSuchTemplateException | FailedException e) {
+                logger.warning("Could not create required improving item (template id - " + toolTemplateId + ").  Reason follows:");
+                e.printStackTrace();
+                scheduler.retryLater(job);
+                return false;
+            }
+        }
+
+        if (tool.isCombine() && tool.isMetal()) {
+            if (tool.getTemperature() >= CrafterAIData.targetTemperature) {
+                crafter.getInventory().insertItem(tool);
+            } else {
+                logger.info("Waiting for lump to heat up.");
+                moveTo(job, JobState.HEATING);
+                scheduler.waitFor(job, JobScheduler.Condition.HEATING_LUMP, tool);
+                return false;
+            }
+        }
+
+        repairTool(tool);
+        capSkills();
+
+        try {
+            BehaviourDispatcher.action(crafter, crafter.getCommunicator(), tool.getWurmId(), item.getWurmId(), Actions.IMPROVE);
+            CrafterLog.info(logger, "Improving {0} with {1}", item.getName(), tool.getName());
+            moveTo(job, JobState.IMPROVING);
+        } catch (NoSuchPlayerException | NoSuchCreatureException | NoSuchItemException | NoSuchBehaviourException | NoSuchWallException | FailedException e) {
+            logger.warning(crafter.getName() + " (" + crafter.getWurmId() + ") could not improve " + item.getName() + " (" + item.getWurmId() + ") with " + tool.getName() + " (" + tool.getWurmId() + ").  Reason follows:");
+            e.printStackTrace();
+            returnErrorJob(job);
+            return false;
+        }
+        scheduler.keep(job);
+        return true;
+    }
+
+    // Metal items and their lumps are kept in a forge until the item is done.  Returns false if there is no forge.
+    private boolean placeInForge(Job job) {
+        Item item = job.item;
+        if (forges.isEmpty()) {
+            scheduler.waitFor(job, JobScheduler.Condition.NO_FORGE, null);
+            return false;
+        }
+
+        Item forge = forgeContaining(item);
+        if (forge == null) {
+            forge = forgeWithSpaceFor(item);
+            if (forge == null)
+                forge = leastUsedForge();
+            forge.insertItem(item);
+            CrafterLog.info(logger, "Put the {0} in the forge", item.getName());
+        }
+        heatForge(forge);
+
+        Item lump = tools.get(MethodsItems.getImproveTemplateId(item));
+        if (lump != null && forgeContaining(lump) == null) {
+            forge.insertItem(lump);
+            CrafterLog.info(logger, "Put the {0} in the forge", lump.getName());
+        }
+        return true;
+    }
+
+    // Puts queued metal items and their lumps in the forges ahead of time, so the next item is already hot when the
+    // current one is finished.  Only run when jobs are added or space in a forge is freed.
+    private void preHeat() {
+        preHeatNeeded = false;
+        for (Job job : workbook) {
+            if (job.done || !job.item.isMetal() || job.item.getDamage() > 0.0f)
+                continue;
+            Item lump = tools.get(MethodsItems.getImproveTemplateId(job.item));
+            if (lump != null && lump.isCombine() && lump.isMetal()) {
+                if (!putInForge(lump))
+                    break;
+            }
+            if (!putInForge(job.item))
+                break;
+        }
+    }
+
+    private boolean putInForge(Item item) {
+        if (forgeContaining(item) != null)
+            return true;
+        Item forge = forgeWithSpaceFor(item);
+        if (forge == null)
+            return false;
+        forge.insertItem(item);
+        heatForge(forge);
+        CrafterLog.info(logger, "Put the {0} in the forge to heat up", item.getName());
+        return true;
+    }
+
+    private void heatForge(Item forge) {
+        if (!forge.isOnFire()) {
+            try {
+                Accessors.setFire(crafter, forge);
+                logger.info("Lighting forge");
+            } catch (RuntimeException e) {
+                logger.warning("Could not light forge.  Reason follows:");
+                e.printStackTrace();
             }
         }
+        forge.setTemperature((short)10000);
+    }
+
+    private void moveTo(Job job, JobState state) {
+        JobState previous = job.state;
+        long elapsed = workbook.setState(job, state);
+        if (previous != state)
+            CrafterLog.info(logger, "{0} spent {1,number,#}s {2}.", job.item.getName(), elapsed / 1000, previous.description);
     }
 
     private void returnErrorJob(Job job) {
         Item item = job.item;
-        if (forge != null && forge.getItems().contains(item))
+        if (forgeContaining(item) != null)
             crafter.getInventory().insertItem(item);
         job.mailToCustomer();
         try {
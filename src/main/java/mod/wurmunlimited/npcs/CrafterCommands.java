@@ -0,0 +1,65 @@
+package mod.wurmunlimited.npcs;
+
+import com.wurmonline.server.players.Player;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+// Routes "/crafters [subcommand]" typed in chat.  Every chat message passes through here, so the message is compared in
+// place and nothing is allocated unless it is a crafters command.
+class CrafterCommands {
+    private static final byte[] command = "/crafters".getBytes(StandardCharsets.US_ASCII);
+    private static final String defaultSubcommand = "status";
+    // Each subcommand gives the message from a crafter to the player, or null if the crafter has nothing for them.
+    private static final Map<String, BiFunction<CrafterAIData, Player, String>> subcommands = new LinkedHashMap<>();
+
+    static {
+        subcommands.put("status", CrafterAIData::getStatusFor);
+        subcommands.put("queue", CrafterAIData::getQueueFor);
+        subcommands.put("eta", CrafterAIData::getEtaFor);
+    }
+
+    // Returns true if the message was a crafters command.
+    static boolean handle(Player player, ByteBuffer message) {
+        String arguments = match(message);
+        if (arguments == null)
+            return false;
+
+        String name = arguments.isEmpty() ? defaultSubcommand : arguments.split(" ", 2)[0].toLowerCase();
+        BiFunction<CrafterAIData, Player, String> subcommand = subcommands.get(name);
+        if (subcommand == null)
+            player.getCommunicator().sendNormalServerMessage("Usage - /crafters [" + String.join("|", subcommands.keySet()) + "]");
+        else
+            CrafterAI.sendCrafterMessagesTo(player, subcommand);
+        return true;
+    }
+
+    // The message starts with its length in a single byte.  Returns the text after "/crafters", or null if the message
+    // is something else.  The buffer position is not changed.
+    @Nullable
+    static String match(ByteBuffer message) {
+        int start = message.position();
+        if (message.remaining() <= command.length)
+            return null;
+        int length = message.get(start) & 255;
+        if (length < command.length || message.remaining() < length + 1)
+            return null;
+        for (int i = 0; i < command.length; ++i) {
+            if (message.get(start + 1 + i) != command[i])
+                return null;
+        }
+        if (length == command.length)
+            return "";
+        if (message.get(start + 1 + command.length) != ' ')
+            return null;
+
+        byte[] arguments = new byte[length - command.length - 1];
+        for (int i = 0; i < arguments.length; ++i)
+            arguments[i] = message.get(start + 2 + command.length + i);
+        return new String(arguments, StandardCharsets.UTF_8).trim();
+    }
+}
@@ -0,0 +1,34 @@
+package mod.wurmunlimited.npcs;
+
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+// Parameterised info messages for crafter logs.  Nothing is built unless the logger is enabled, and the message is only
+// formatted when written, on the log writer thread.  Templates use MessageFormat, e.g. "Repairing {0}".
+public class CrafterLog {
+    public static void info(Logger log, String template, Object arg) {
+        if (log.isLoggable(Level.INFO))
+            log(log, template, new Object[] { arg });
+    }
+
+    public static void info(Logger log, String template, Object arg1, Object arg2) {
+        if (log.isLoggable(Level.INFO))
+            log(log, template, new Object[] { arg1, arg2 });
+    }
+
+    public static void info(Logger log, String template, Object arg1, Object arg2, Object arg3) {
+        if (log.isLoggable(Level.INFO))
+            log(log, template, new Object[] { arg1, arg2, arg3 });
+    }
+
+    private static void log(Logger log, String template, Object[] args) {
+        LogRecord record = new LogRecord(Level.INFO, template);
+        record.setParameters(args);
+        record.setLoggerName(log.getName());
+        // Set so the caller is not looked up from the stack, the logger name is written in its place.
+        record.setSourceClassName(null);
+        record.setSourceMethodName(null);
+        log.log(record);
+    }
+}
@@ -1,22 +1,32 @@
 package mod.wurmunlimited.npcs;
 
 import com.wurmonline.server.TimeConstants;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.Arrays;
 import java.util.logging.Filter;
 import java.util.logging.LogRecord;
 
+// Drops repeats of the last message for up to 15 minutes.  Messages are compared by template and arguments rather than
+// the formatted text, templates are normally the same literal so are usually the same instance.
 public class CrafterLogFilter implements Filter {
     private String lastMessage = "";
+    private Object[] lastParameters = null;
     private long lastRepeat = 0;
+    private int repeats = 0;
+    @Nullable
+    private LogRecord summary = null;
 
     @Override
     public boolean isLoggable(LogRecord record) {
         String message = record.getMessage();
-        if (message.equals(lastMessage)) {
+        Object[] parameters = record.getParameters();
+        if (isSameAsLast(message, parameters)) {
             if (lastRepeat == 0) {
                 lastRepeat = System.currentTimeMillis();
             }
             if (System.currentTimeMillis() - lastRepeat < TimeConstants.FIFTEEN_MINUTES_MILLIS) {
+                ++repeats;
                 return false;
             } else
                 lastRepeat = System.currentTimeMillis();
@@ -24,7 +34,30 @@ public class CrafterLogFilter implements Filter {
             lastRepeat = 0;
         }
 
+        if (repeats > 0) {
+            summary = new LogRecord(record.getLevel(), "Last message repeated {0} times.");
+            summary.setParameters(new Object[] { repeats });
+            summary.setLoggerName(record.getLoggerName());
+            summary.setSourceClassName(record.getSourceClassName());
+            summary.setSourceMethodName(record.getSourceMethodName());
+            repeats = 0;
+        }
         lastMessage = message;
+        lastParameters = parameters;
         return true;
     }
+
+    private boolean isSameAsLast(String message, Object[] parameters) {
+        //noinspection StringEquality
+        return (message == lastMessage || (message != null && message.equals(lastMessage))) && Arrays.equals(parameters, lastParameters);
+    }
+
+    // The "repeated N times" record for the messages dropped before the last one let through, if any.  Should be
+    // written before that message.
+    @Nullable
+    LogRecord takeSummary() {
+        LogRecord taken = summary;
+        summary = null;
+        return taken;
+    }
 }
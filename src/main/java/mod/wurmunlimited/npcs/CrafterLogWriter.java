@@ -0,0 +1,206 @@
+package mod.wurmunlimited.npcs;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Filter;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+// Writes crafter log records on a background thread, so formatting and writing log files is kept off the server
+// thread.  Records wait in a bounded queue and are written in batches, each handler is flushed once per batch.
+class CrafterLogWriter {
+    private static final Logger logger = Logger.getLogger(CrafterLogWriter.class.getName());
+    private static final int batchSize = 256;
+    private static final long waitMillis = 5000;
+    private final BlockingQueue<Entry> queue;
+    private final CrafterMod.LogQueueOption whenFull;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread thread;
+    private volatile boolean stopped = false;
+
+    private static class Entry {
+        // Null for markers, which flush everything written so far.
+        @Nullable
+        final Handler target;
+        // Null with a target to close the target.
+        @Nullable
+        final LogRecord record;
+        @Nullable
+        final CountDownLatch done;
+        final boolean stop;
+
+        private Entry(@Nullable Handler target, @Nullable LogRecord record, @Nullable CountDownLatch done, boolean stop) {
+            this.target = target;
+            this.record = record;
+            this.done = done;
+            this.stop = stop;
+        }
+    }
+
+    // Passes records to the writer, in place of the crafter's file and console handlers.  Filtering is done here, before
+    // the record is queued, along with any summary of repeats the filter dropped.
+    static class AsyncHandler extends Handler {
+        private final CrafterLogWriter writer;
+        private final Handler target;
+
+        AsyncHandler(CrafterLogWriter writer, Handler target) {
+            this.writer = writer;
+            this.target = target;
+        }
+
+        @Override
+        public void publish(LogRecord record) {
+            if (!isLoggable(record))
+                return;
+            // The caller is found from the stack when first asked for, so has to be before the record leaves this thread.
+            record.getSourceClassName();
+            Filter filter = getFilter();
+            if (filter instanceof CrafterLogFilter) {
+                LogRecord summary = ((CrafterLogFilter)filter).takeSummary();
+                if (summary != null)
+                    writer.publish(target, summary);
+            }
+            writer.publish(target, record);
+        }
+
+        @Override
+        public void flush() {
+            writer.flush();
+        }
+
+        // Does not wait for the target to be closed.
+        @Override
+        public void close() {
+            writer.close(target);
+        }
+    }
+
+    CrafterLogWriter(int capacity, CrafterMod.LogQueueOption whenFull) {
+        queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.whenFull = whenFull;
+        thread = new Thread(this::run, "Crafter log writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void publish(Handler target, LogRecord record) {
+        if (stopped) {
+            target.publish(record);
+            target.flush();
+        } else if (whenFull == CrafterMod.LogQueueOption.block) {
+            put(new Entry(target, record, null, false));
+        } else if (!queue.offer(new Entry(target, record, null, false))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    // Waits until every record published before this has been written.
+    void flush() {
+        if (stopped)
+            return;
+        CountDownLatch done = new CountDownLatch(1);
+        put(new Entry(null, null, done, false));
+        await(done);
+    }
+
+    // Closed straight away if the queue is full, rather than blocking the server thread.
+    void close(Handler target) {
+        if (stopped || !queue.offer(new Entry(target, null, null, false)))
+            target.close();
+    }
+
+    // Writes everything still queued, then stops the writer.  Anything published afterwards is written straight away.
+    void shutdown() {
+        if (stopped)
+            return;
+        CountDownLatch done = new CountDownLatch(1);
+        put(new Entry(null, null, done, true));
+        await(done);
+        stopped = true;
+    }
+
+    long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void put(Entry entry) {
+        try {
+            queue.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void await(CountDownLatch done) {
+        try {
+            if (!done.await(waitMillis, TimeUnit.MILLISECONDS))
+                logger.warning("Timed out waiting for crafter logs to be written.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        Set<Handler> written = Collections.newSetFromMap(new IdentityHashMap<>());
+        long reportedDropped = 0;
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, batchSize - 1);
+
+            boolean stop = false;
+            for (Entry entry : batch) {
+                try {
+                    if (entry.target == null) {
+                        flushAll(written);
+                        if (entry.done != null)
+                            entry.done.countDown();
+                        stop |= entry.stop;
+                    } else if (entry.record == null) {
+                        written.remove(entry.target);
+                        entry.target.flush();
+                        entry.target.close();
+                    } else {
+                        entry.target.publish(entry.record);
+                        written.add(entry.target);
+                    }
+                } catch (RuntimeException e) {
+                    logger.warning("Could not write crafter log record.  Reason follows:");
+                    e.printStackTrace();
+                }
+            }
+            batch.clear();
+            flushAll(written);
+
+            long droppedNow = dropped.get();
+            if (droppedNow != reportedDropped) {
+                logger.warning("Crafter log queue was full, " + (droppedNow - reportedDropped) + " records were dropped.");
+                reportedDropped = droppedNow;
+            }
+            if (stop)
+                return;
+        }
+    }
+
+    private static void flushAll(Set<Handler> written) {
+        for (Handler handler : written) {
+            try {
+                handler.flush();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+        written.clear();
+    }
+}
@@ -13,7 +13,6 @@ import com.wurmonline.server.skills.SkillList;
 import com.wurmonline.shared.constants.IconConstants;
 import com.wurmonline.shared.constants.ItemMaterials;
 import javassist.*;
-import org.gotti.wurmunlimited.modloader.ReflectionUtil;
 import org.gotti.wurmunlimited.modloader.classhooks.HookManager;
 import org.gotti.wurmunlimited.modloader.interfaces.*;
 import org.gotti.wurmunlimited.modsupport.ItemTemplateBuilder;
@@ -21,17 +20,15 @@ import org.gotti.wurmunlimited.modsupport.actions.ModActions;
 import org.gotti.wurmunlimited.modsupport.creatures.ModCreatures;
 
 import java.io.IOException;
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.*;
 import java.util.stream.Collectors;
 
-public class CrafterMod implements WurmServerMod, PreInitable, Initable, Configurable, ItemTemplatesCreatedListener, ServerStartedListener {
+public class CrafterMod implements WurmServerMod, PreInitable, Initable, Configurable, ItemTemplatesCreatedListener, ServerStartedListener, ServerShutdownListener, ServerPollListener {
     private static final Logger logger = Logger.getLogger(CrafterMod.class.getName());
     private static final Random faceRandom = new Random();
     private static int contractTemplateId;
@@ -48,7 +45,17 @@ public class CrafterMod implements WurmServerMod, PreInitable, Initable, Configu
     private static float skillCap = 99.99999f;
     private static float startingSkill = 20;
     private static OutputOption output = OutputOption.none;
-    private static final Map<Creature, Logger> crafterLoggers = new HashMap<>();
+    private static JobStoreOption jobStore = JobStoreOption.inscription;
+    private static int workBookSaveInterval = 0;
+    private static float crafterTickBudget = 2.0f;
+    private static int logQueueSize = 8192;
+    private static LogQueueOption logQueueFull = LogQueueOption.drop;
+    private static CrafterLogWriter logWriter = null;
+    private static int maxOpenLogFiles = 64;
+    private static int logFileMaxSize = 10240;
+    private static int logFileMaxAge = 24;
+    private static int logFileIdleTime = 300;
+    private static LogFilePool logFiles = null;
     private Properties properties;
 
     private enum OutputOption {
@@ -57,6 +64,16 @@ public class CrafterMod implements WurmServerMod, PreInitable, Initable, Configu
         none
     }
 
+    enum LogQueueOption {
+        drop,
+        block
+    }
+
+    public enum JobStoreOption {
+        inscription,
+        journal
+    }
+
     public enum PaymentOption {
         tax_and_upkeep,
         for_owner,
@@ -95,6 +112,18 @@ public class CrafterMod implements WurmServerMod, PreInitable, Initable, Configu
         return paymentOption;
     }
 
+    public static JobStoreOption getJobStore() {
+        return jobStore;
+    }
+
+    public static int getWorkBookSaveInterval() {
+        return workBookSaveInterval;
+    }
+
+    static long getCrafterTickBudgetNanos() {
+        return (long)(crafterTickBudget * 1000000);
+    }
+
     private OutputOption parseOutputOption(String value) {
         OutputOption option = output;
         if (value != null && value.length() > 0) {
@@ -119,6 +148,32 @@ public class CrafterMod implements WurmServerMod, PreInitable, Initable, Configu
         return option;
     }
 
+    private JobStoreOption parseJobStoreOption(String value) {
+        JobStoreOption option = jobStore;
+        if (value != null && value.length() > 0) {
+            try {
+                option = JobStoreOption.valueOf(value);
+            } catch (IllegalArgumentException e) {
+                logger.warning("Invalid JobStoreOption - " + value);
+                e.printStackTrace();
+            }
+        }
+        return option;
+    }
+
+    private LogQueueOption parseLogQueueOption(String value) {
+        LogQueueOption option = logQueueFull;
+        if (value != null && value.length() > 0) {
+            try {
+                option = LogQueueOption.valueOf(value);
+            } catch (IllegalArgumentException e) {
+                logger.warning("Invalid LogQueueOption - " + value);
+                e.printStackTrace();
+            }
+        }
+        return option;
+    }
+
     private boolean getOption(String option, boolean _default) {
         String val = properties.getProperty(option);
         if (val != null && val.length() > 0) {
@@ -164,6 +219,15 @@ public class CrafterMod implements WurmServerMod, PreInitable, Initable, Configu
         contractPrice = getOption("contract_price_in_irons", contractPrice);
         paymentOption = parsePaymentOption(properties.getProperty("payment"));
         output = parseOutputOption(properties.getProperty("output"));
+        jobStore = parseJobStoreOption(properties.getProperty("job_store"));
+        workBookSaveInterval = Math.max(0, getOption("work_book_save_interval", workBookSaveInterval));
+        crafterTickBudget = getOption("crafter_tick_budget", crafterTickBudget);
+        logQueueSize = Math.max(1, getOption("log_queue_size", logQueueSize));
+        logQueueFull = parseLogQueueOption(properties.getProperty("log_queue_full"));
+        maxOpenLogFiles = Math.max(1, getOption("max_open_log_files", maxOpenLogFiles));
+        logFileMaxSize = Math.max(0, getOption("log_file_max_size_kb", logFileMaxSize));
+        logFileMaxAge = Math.max(0, getOption("log_file_max_age_hours", logFileMaxAge));
+        logFileIdleTime = Math.max(0, getOption("log_file_idle_seconds", logFileIdleTime));
         canLearn = getOption("can_learn", canLearn);
         updateTraders = getOption("update_traders", updateTraders);
         contractsOnTraders = getOption("contracts_on_traders", contractsOnTraders);
@@ -282,10 +346,28 @@ public class CrafterMod implements WurmServerMod, PreInitable, Initable, Configu
                 "()V",
                 () -> this::wearItems);
 
+        // Crafters can be destroyed without being dismissed, e.g. by a GM.
+        manager.registerHook("com.wurmonline.server.creatures.Creature",
+                "destroy",
+                "()V",
+                () -> this::destroyCreature);
+
         ModCreatures.init();
         ModCreatures.addCreature(new CrafterTemplate());
     }
 
+    Object destroyCreature(Object o, Method method, Object[] args) throws Throwable {
+        Creature creature = (Creature)o;
+        if (CrafterTemplate.isCrafter(creature))
+            CrafterAI.removeCrafter(creature);
+
+        try {
+            return method.invoke(o, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
     Object wearItems(Object o, Method method, Object[] args) throws InvocationTargetException, IllegalAccessException {
         Creature creature = (Creature)o;
         if (CrafterTemplate.isCrafter(creature)) {
@@ -389,38 +471,68 @@ public class CrafterMod implements WurmServerMod, PreInitable, Initable, Configu
         }
     }
 
+    @Override
+    public void onServerPoll() {
+        CrafterAI.tickScheduler.run();
+        if (logFiles != null)
+            logFiles.closeIdle();
+    }
+
+    @Override
+    public void onServerShutdown() {
+        for (Creature crafter : CrafterAI.registry.getCrafters()) {
+            WorkBook workBook = ((CrafterAIData)crafter.getCreatureAIData()).getWorkBook();
+            if (workBook != null)
+                workBook.flush();
+        }
+        if (logWriter != null)
+            logWriter.shutdown();
+        if (logFiles != null)
+            logFiles.shutdown();
+    }
+
+    // Kept by the registry, and closed when the crafter is dismissed or destroyed.
     static Logger getCrafterLogger(Creature crafter) {
-        Logger log = crafterLoggers.get(crafter);
-        if (log == null) {
-            log = Logger.getLogger(crafter.getName() + "_" + crafter.getWurmId());
-            if (output == OutputOption.none)
-                log.setLevel(Level.OFF);
-            else {
-                log.setUseParentHandlers(false);
-                if (output == OutputOption.save_and_print)
-                    log.addHandler(new ConsoleHandler());
-                try {
-                    FileHandler fh = new FileHandler("crafter_" + log.getName() + ".log", 0, 1, true);
-                    log.addHandler(fh);
-                    fh.setFormatter(new SimpleFormatter());
-                } catch (IOException e) {
-                    logger.warning("Could not create log file for " + log.getName());
-                }
-                for (Handler handler : log.getHandlers())
-                    handler.setFilter(new CrafterLogFilter());
+        return CrafterAI.registry.getLogger(crafter, CrafterMod::createCrafterLogger);
+    }
+
+    private static Logger createCrafterLogger(Creature crafter) {
+        Logger log = Logger.getLogger(crafter.getName() + "_" + crafter.getWurmId());
+        if (output == OutputOption.none)
+            log.setLevel(Level.OFF);
+        else {
+            log.setUseParentHandlers(false);
+            List<Handler> handlers = new ArrayList<>();
+            if (output == OutputOption.save_and_print)
+                handlers.add(new ConsoleHandler());
+            handlers.add(getLogFiles().getHandler("crafter_" + log.getName() + ".log", false));
+            // Written on the log writer thread.
+            for (Handler handler : handlers) {
+                Handler async = new CrafterLogWriter.AsyncHandler(getLogWriter(), handler);
+                async.setFilter(new CrafterLogFilter());
+                log.addHandler(async);
             }
-            crafterLoggers.put(crafter, log);
         }
         return log;
     }
 
-    private Object logMessages(Object o, Method method, Object[] args) throws InvocationTargetException, IllegalAccessException, NoSuchFieldException {
+    public static synchronized LogFilePool getLogFiles() {
+        if (logFiles == null)
+            logFiles = new LogFilePool(maxOpenLogFiles, logFileMaxSize * 1024L, logFileMaxAge * TimeConstants.HOUR_MILLIS, logFileIdleTime * TimeConstants.SECOND_MILLIS);
+        return logFiles;
+    }
+
+    private static synchronized CrafterLogWriter getLogWriter() {
+        if (logWriter == null)
+            logWriter = new CrafterLogWriter(logQueueSize, logQueueFull);
+        return logWriter;
+    }
+
+    private Object logMessages(Object o, Method method, Object[] args) throws InvocationTargetException, IllegalAccessException {
         if (output != OutputOption.none) {
-            Field creatureField = CreatureCommunicator.class.getDeclaredField("creature");
-            creatureField.setAccessible(true);
-            Creature creature = (Creature)creatureField.get(o);
+            Creature creature = Accessors.getCreature((CreatureCommunicator)o);
             if (creature.getTemplate().getTemplateId() == CrafterTemplate.getTemplateId()) {
-                getCrafterLogger(creature).info("Received - " + args[0]);
+                CrafterLog.info(getCrafterLogger(creature), "Received - {0}", args[0]);
             }
         }
         return method.invoke(o, args);
@@ -432,19 +544,15 @@ public class CrafterMod implements WurmServerMod, PreInitable, Initable, Configu
     }
 
     Object behaviourDispatcher(Object o, Method method, Object[] args) throws Throwable {
-        Creature creature = (Creature)args[0];
-        if ((Short)args[4] == Actions.OPEN) {
-            try {
-                Item maybeForge = Items.getItem((Long)args[3]);
-                if (maybeForge.getTemplateId() == ItemList.forge && CrafterAI.assignedForges.containsValue(maybeForge)) {
-                    if (creature.getPower() >= 2)
-                        creature.getCommunicator().sendAlertServerMessage("This forge is assigned to a Crafter.  Do not change the contents of the forge unless you know what you are doing.");
-                    else {
-                        creature.getCommunicator().sendAlertServerMessage("The crafter blocks you from accessing the forge.");
-                        return null;
-                    }
-                }
-            } catch (NoSuchItemException ignored) {}
+        // Every action passes through here, only assigned forges need anything more than a set lookup.
+        if ((Short)args[4] == Actions.OPEN && CrafterAI.registry.isForgeAssigned((Long)args[3])) {
+            Creature creature = (Creature)args[0];
+            if (creature.getPower() >= 2)
+                creature.getCommunicator().sendAlertServerMessage("This forge is assigned to a Crafter.  Do not change the contents of the forge unless you know what you are doing.");
+            else {
+                creature.getCommunicator().sendAlertServerMessage("The crafter blocks you from accessing the forge.");
+                return null;
+            }
         }
 
         try {
@@ -454,16 +562,16 @@ public class CrafterMod implements WurmServerMod, PreInitable, Initable, Configu
         }
     }
 
-    private Object getShop(Object o, Method method, Object[] args) throws IllegalAccessException, NoSuchFieldException {
+    private Object getShop(Object o, Method method, Object[] args) {
         Creature creature = (Creature)args[0];
         boolean destroying = (boolean)args[1];
         Shop tm = null;
         if (creature.isNpcTrader() || creature.getTemplate().getTemplateId() == CrafterTemplate.getTemplateId()) {
-            ReentrantReadWriteLock SHOPS_RW_LOCK = ReflectionUtil.getPrivateField(null, Economy.class.getDeclaredField("SHOPS_RW_LOCK"));
+            ReentrantReadWriteLock SHOPS_RW_LOCK = Accessors.getShopsLock();
             SHOPS_RW_LOCK.readLock().lock();
 
             try {
-                Map<Long, Shop> shops = ReflectionUtil.getPrivateField(Economy.getEconomy(), Economy.class.getDeclaredField("shops"));
+                Map<Long, Shop> shops = Accessors.getShops(Economy.getEconomy());
                 tm = shops.get(creature.getWurmId());
             } finally {
                 SHOPS_RW_LOCK.readLock().unlock();
@@ -477,19 +585,15 @@ public class CrafterMod implements WurmServerMod, PreInitable, Initable, Configu
         return tm;
     }
 
-    Object getTradeHandler(Object o, Method method, Object[] args) throws NoSuchFieldException, InvocationTargetException, IllegalAccessException, ClassNotFoundException, NoSuchMethodException, InstantiationException {
+    Object getTradeHandler(Object o, Method method, Object[] args) throws InvocationTargetException, IllegalAccessException {
         Creature creature = (Creature)o;
         if (creature.getTemplate().getTemplateId() != CrafterTemplate.getTemplateId())
             return method.invoke(o, args);
 
-        Field tradeHandler = Creature.class.getDeclaredField("tradeHandler");
-        tradeHandler.setAccessible(true);
-        TradeHandler handler = (TradeHandler)tradeHandler.get(o);
-
+        TradeHandler handler = Accessors.getTradeHandler(creature);
         if (handler == null) {
-            Class<?> ServiceHandler = Class.forName("com.wurmonline.server.creatures.CrafterTradeHandler");
-            handler = (TradeHandler)ServiceHandler.getConstructor(Creature.class, CrafterTrade.class).newInstance(creature, (CrafterTrade)creature.getTrade());
-            tradeHandler.set(o, handler);
+            handler = Accessors.newCrafterTradeHandler(creature, (CrafterTrade)creature.getTrade());
+            Accessors.setTradeHandler(creature, handler);
         }
         return handler;
     }
@@ -497,16 +601,8 @@ public class CrafterMod implements WurmServerMod, PreInitable, Initable, Configu
     Object serverCommand(Object o, Method method, Object[] args) throws Throwable {
         Player player = ((Communicator)o).getPlayer();
 
-        if (player != null) {
-            ByteBuffer byteBuffer = ((ByteBuffer)args[0]).duplicate();
-            byte[] tempStringArr = new byte[byteBuffer.get() & 255];
-            byteBuffer.get(tempStringArr);
-            String message = new String(tempStringArr, StandardCharsets.UTF_8);
-            if (message.equals("/crafters")) {
-                CrafterAI.sendCrafterStatusTo(player);
-                return null;
-            }
-        }
+        if (player != null && CrafterCommands.handle(player, (ByteBuffer)args[0]))
+            return null;
 
         try {
             return method.invoke(o, args);
@@ -526,15 +622,15 @@ public class CrafterMod implements WurmServerMod, PreInitable, Initable, Configu
                         if (crafter.getTemplate().getTemplateId() == CrafterTemplate.getTemplateId()) {
                             Shop shop = Economy.getEconomy().getShop(crafter);
                             if (shop != null) {
-                                Creature windowOwner = ReflectionUtil.getPrivateField(window, TradingWindow.class.getDeclaredField("windowowner"));
-                                Creature watcher = ReflectionUtil.getPrivateField(window, TradingWindow.class.getDeclaredField("watcher"));
+                                Creature windowOwner = Accessors.getWindowOwner(window);
+                                Creature watcher = Accessors.getWatcher(window);
 
                                 shop.setOwner(watcher.getWurmId());
                                 watcher.getCommunicator().sendNormalServerMessage("You are now in control of " + crafter.getName() + ".");
                                 windowOwner.getCommunicator().sendNormalServerMessage("You are no longer in control of " + crafter.getName() + ".");
                             }
                         }
-                    } catch (NoSuchPlayerException | NoSuchCreatureException | NoSuchFieldException e) {
+                    } catch (NoSuchPlayerException | NoSuchCreatureException e) {
                         logger.warning("Error when trying to transfer crafter contract (for " + data + ") to another player.");
                         e.printStackTrace();
                     }
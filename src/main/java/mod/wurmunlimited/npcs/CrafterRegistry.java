@@ -0,0 +1,128 @@
+package mod.wurmunlimited.npcs;
+
+import com.wurmonline.server.creatures.Creature;
+import com.wurmonline.server.items.Item;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Every crafter on the server, with their assigned forges and log files, keyed by wurm id.  Crafters must be
+// unregistered when dismissed or destroyed, otherwise they and their open log files are kept for the life of the server.
+// Reads do not lock, changes are rare so are synchronized.
+public class CrafterRegistry {
+    private final Map<Long, Creature> crafters = new ConcurrentHashMap<>();
+    // Forge id to the crafter it is assigned to.
+    private final Map<Long, Creature> forges = new ConcurrentHashMap<>();
+    // Ids of the assigned forges, so actions on other items can be let through without looking up the item.  Replaced
+    // rather than changed, so it can be read from any thread.
+    private volatile LongHashSet forgeIds = new LongHashSet();
+    private final Map<Long, Logger> loggers = new ConcurrentHashMap<>();
+    // Given for crafters that are not registered, e.g. whilst being destroyed, so no log file is opened for them.
+    private static final Logger offLogger = createOffLogger();
+
+    synchronized void register(Creature crafter) {
+        crafters.put(crafter.getWurmId(), crafter);
+    }
+
+    public synchronized void unregister(Creature crafter) {
+        long crafterId = crafter.getWurmId();
+        crafters.remove(crafterId);
+
+        LongHashSet ids = new LongHashSet(forgeIds);
+        Iterator<Map.Entry<Long, Creature>> iterator = forges.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Creature> entry = iterator.next();
+            if (entry.getValue().getWurmId() == crafterId) {
+                ids.remove(entry.getKey());
+                iterator.remove();
+            }
+        }
+        forgeIds = ids;
+
+        Logger log = loggers.remove(crafterId);
+        if (log != null)
+            closeHandlers(log);
+    }
+
+    public boolean isRegistered(Creature crafter) {
+        return crafters.containsKey(crafter.getWurmId());
+    }
+
+    Collection<Creature> getCrafters() {
+        return Collections.unmodifiableCollection(crafters.values());
+    }
+
+    public synchronized void assignForge(Item forge, Creature crafter) {
+        forges.put(forge.getWurmId(), crafter);
+        LongHashSet ids = new LongHashSet(forgeIds);
+        ids.add(forge.getWurmId());
+        forgeIds = ids;
+    }
+
+    public synchronized void unassignForge(Item forge) {
+        if (forges.remove(forge.getWurmId()) != null) {
+            LongHashSet ids = new LongHashSet(forgeIds);
+            ids.remove(forge.getWurmId());
+            forgeIds = ids;
+        }
+    }
+
+    public boolean isForgeAssigned(long forgeId) {
+        return forgeIds.contains(forgeId);
+    }
+
+    @Nullable
+    public Creature getCrafterAssignedTo(long forgeId) {
+        return forges.get(forgeId);
+    }
+
+    Logger getLogger(Creature crafter, Function<Creature, Logger> create) {
+        Logger log = loggers.get(crafter.getWurmId());
+        if (log != null)
+            return log;
+        synchronized (this) {
+            if (!isRegistered(crafter))
+                return offLogger;
+            return loggers.computeIfAbsent(crafter.getWurmId(), id -> create.apply(crafter));
+        }
+    }
+
+    private static Logger createOffLogger() {
+        Logger log = Logger.getAnonymousLogger();
+        log.setUseParentHandlers(false);
+        log.setLevel(Level.OFF);
+        return log;
+    }
+
+    public int getCrafterCount() {
+        return crafters.size();
+    }
+
+    public int getAssignedForgeCount() {
+        return forges.size();
+    }
+
+    public int getOpenLoggerCount() {
+        return loggers.size();
+    }
+
+    public synchronized void clear() {
+        crafters.clear();
+        forges.clear();
+        forgeIds = new LongHashSet();
+        loggers.values().forEach(CrafterRegistry::closeHandlers);
+        loggers.clear();
+    }
+
+    private static void closeHandlers(Logger log) {
+        for (Handler handler : log.getHandlers()) {
+            log.removeHandler(handler);
+            handler.close();
+        }
+    }
+}
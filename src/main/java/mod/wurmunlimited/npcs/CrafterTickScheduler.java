@@ -0,0 +1,58 @@
+package mod.wurmunlimited.npcs;
+
+import com.wurmonline.server.creatures.Creature;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+// Crafter work is run from the server poll rather than inline in each creature poll, so the time spent on crafters
+// each tick can be kept within a budget.  Crafters that did not get a turn are first in line on the next tick.
+class CrafterTickScheduler {
+    private static final Logger logger = Logger.getLogger(CrafterTickScheduler.class.getName());
+    private final Deque<Creature> queue = new ArrayDeque<>();
+    private final Set<Creature> queued = new HashSet<>();
+    private final Consumer<Creature> work;
+    private final LongSupplier budgetNanos;
+
+    CrafterTickScheduler(Consumer<Creature> work, LongSupplier budgetNanos) {
+        this.work = work;
+        this.budgetNanos = budgetNanos;
+    }
+
+    // Crafters already waiting for a turn keep their place.
+    void request(Creature crafter) {
+        if (queued.add(crafter))
+            queue.addLast(crafter);
+    }
+
+    void remove(Creature crafter) {
+        if (queued.remove(crafter))
+            queue.remove(crafter);
+    }
+
+    int size() {
+        return queue.size();
+    }
+
+    // At least one crafter is run each tick, so a budget smaller than a single turn still makes progress.
+    // Crafters requesting another turn whilst running go to the back, after everyone already waiting.
+    void run() {
+        long budget = budgetNanos.getAsLong();
+        long start = System.nanoTime();
+        int count = queue.size();
+        for (int i = 0; i < count; ++i) {
+            if (i > 0 && System.nanoTime() - start >= budget)
+                break;
+            Creature crafter = queue.pollFirst();
+            queued.remove(crafter);
+            try {
+                work.accept(crafter);
+            } catch (RuntimeException e) {
+                logger.warning("Error when running crafter (" + crafter.getWurmId() + ").  Reason follows:");
+                e.printStackTrace();
+            }
+        }
+    }
+}
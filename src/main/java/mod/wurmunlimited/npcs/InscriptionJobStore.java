@@ -0,0 +1,280 @@
+package mod.wurmunlimited.npcs;
+
+import com.google.common.collect.Iterators;
+import com.wurmonline.server.FailedException;
+import com.wurmonline.server.Items;
+import com.wurmonline.server.NoSuchItemException;
+import com.wurmonline.server.items.InscriptionData;
+import com.wurmonline.server.items.Item;
+import com.wurmonline.server.items.NoSuchTemplateException;
+
+import java.util.*;
+import java.util.logging.Logger;
+
+// Jobs inscribed on the papyrus pages of the work book.  Only pages with changed jobs are re-inscribed when saving.
+class InscriptionJobStore implements JobStore {
+    private static final Logger logger = Logger.getLogger(InscriptionJobStore.class.getName());
+    private static final int MAX_INSCRIPTION_LENGTH = 500;
+    private static final int MAX_PAGES = 20;
+    private final Item workBookItem;
+    private final List<Item> pageItems;
+    private final List<Page> pages = new ArrayList<>();
+    private final Map<Job, Page> jobPages = new HashMap<>();
+
+    private static class Page {
+        private Item item;
+        private final List<Job> jobs = new ArrayList<>();
+        private String text = JobEncoding.encodePage(Collections.emptyList());
+        // Room kept for the lines to grow as jobs wait, re-encoding is not checked against the inscription limit.
+        private int reserved = 0;
+        private boolean dirty = false;
+
+        private void encode() {
+            text = JobEncoding.encodePage(jobs);
+            reserved = 0;
+            for (Job job : jobs)
+                reserved += JobEncoding.growth(job);
+        }
+
+        private void update() {
+            encode();
+            dirty = true;
+        }
+
+        private int length() {
+            return text.length() + reserved;
+        }
+    }
+
+    // pageItems should be in page order, without the contents page.
+    InscriptionJobStore(Item workBookItem, List<Item> pageItems) {
+        this.workBookItem = workBookItem;
+        this.pageItems = pageItems;
+    }
+
+    @Override
+    public List<Job> load() {
+        List<Job> jobs = new ArrayList<>();
+        boolean reSave = false;
+        for (Item pageItem : pageItems) {
+            InscriptionData inscription = pageItem.getInscription();
+            if (inscription == null) {
+                logger.warning(pageItem.getName() + " in workbook has no inscription.  Removing.");
+                Items.destroyItem(pageItem.getWurmId());
+                reSave = true;
+                continue;
+            }
+
+            Page page = new Page();
+            page.item = pageItem;
+            pages.add(page);
+            String text = inscription.getInscription();
+            boolean version2 = JobEncoding.isVersion2(text);
+            String[] lines = text.split("\n");
+            long previousCustomer = -10;
+            for (int i = version2 ? 1 : 0; i < lines.length; ++i) {
+                String line = lines[i];
+                try {
+                    JobEncoding.Entry entry = version2 ? JobEncoding.decode(line, previousCustomer) : JobEncoding.decodeLegacy(line);
+                    if (!entry.donation)
+                        previousCustomer = entry.customerId;
+                    page.jobs.add(JobEncoding.toJob(entry));
+                } catch (NoSuchItemException | NumberFormatException e) {
+                    logger.warning("Invalid line in workbook - " + line);
+                    // Try to recover owner and item.
+                    long[] ids = JobEncoding.readIds(line, version2, previousCustomer);
+                    if (ids != null)
+                        Job.recoverItem(ids[0], ids[1]);
+                    // Only the page with the invalid line needs to be re-inscribed.
+                    page.dirty = true;
+                    reSave = true;
+                    e.printStackTrace();
+                }
+            }
+
+            for (Job job : page.jobs) {
+                jobs.add(job);
+                jobPages.put(job, page);
+            }
+            page.encode();
+            // Pages in the original format are rewritten in the compact one.
+            if (!version2) {
+                page.dirty = true;
+                reSave = true;
+            }
+        }
+
+        if (reSave)
+            save();
+        return jobs;
+    }
+
+    @Override
+    public boolean hasJobs() {
+        return !pageItems.isEmpty() || !pages.isEmpty();
+    }
+
+    @Override
+    public boolean hasSpaceFor(List<Job> toAdd) {
+        return fits(toAdd, false) || fits(toAdd, true);
+    }
+
+    @Override
+    public void add(Job job) throws WorkBook.WorkBookFull {
+        Page page = getPageWithSpaceFor(JobEncoding.maxLength(job));
+        page.jobs.add(job);
+        page.update();
+        jobPages.put(job, page);
+    }
+
+    @Override
+    public void remove(Job job) {
+        Page page = jobPages.remove(job);
+        if (page != null) {
+            page.jobs.remove(job);
+            page.update();
+        }
+    }
+
+    @Override
+    public void update(Job job) {
+        Page page = jobPages.get(job);
+        if (page != null)
+            page.update();
+    }
+
+    private Page getPageWithSpaceFor(int length) throws WorkBook.WorkBookFull {
+        if (!pages.isEmpty()) {
+            Page last = pages.get(pages.size() - 1);
+            if (last.length() + length <= MAX_INSCRIPTION_LENGTH)
+                return last;
+        }
+
+        if (pages.size() >= MAX_PAGES) {
+            // Earlier pages may have space from removed jobs, re-packing is the only time every page is rewritten.
+            if (!fits(Collections.emptyList(), true))
+                throw new WorkBook.WorkBookFull("Work book is already full.");
+            repack();
+            Page last = pages.get(pages.size() - 1);
+            if (last.length() + length <= MAX_INSCRIPTION_LENGTH)
+                return last;
+            if (pages.size() >= MAX_PAGES)
+                throw new WorkBook.WorkBookFull("Work book is already full.");
+        }
+
+        Page page = new Page();
+        pages.add(page);
+        return page;
+    }
+
+    private Iterator<Job> allJobs() {
+        return Iterators.concat(pages.stream().map(page -> page.jobs.iterator()).iterator());
+    }
+
+    private boolean fits(List<Job> toAdd, boolean repacked) {
+        int pageCount;
+        int length;
+        if (repacked) {
+            pageCount = 0;
+            length = MAX_INSCRIPTION_LENGTH;
+        } else {
+            pageCount = pages.size();
+            length = pageCount == 0 ? MAX_INSCRIPTION_LENGTH : pages.get(pageCount - 1).length();
+        }
+
+        Iterator<Job> iterator = repacked ? Iterators.concat(allJobs(), toAdd.iterator()) : toAdd.iterator();
+        while (iterator.hasNext()) {
+            int jobLength = JobEncoding.maxLength(iterator.next());
+            if (length + jobLength > MAX_INSCRIPTION_LENGTH) {
+                if (pageCount >= MAX_PAGES)
+                    return false;
+                ++pageCount;
+                length = JobEncoding.VERSION_2.length() + 1;
+            }
+            length += jobLength;
+        }
+        return true;
+    }
+
+    private void repack() {
+        List<Job> jobs = new ArrayList<>();
+        allJobs().forEachRemaining(jobs::add);
+        List<List<Job>> previous = new ArrayList<>();
+        for (Page page : pages) {
+            previous.add(new ArrayList<>(page.jobs));
+            page.jobs.clear();
+        }
+
+        int index = 0;
+        int length = JobEncoding.VERSION_2.length() + 1;
+        for (Job job : jobs) {
+            int jobLength = JobEncoding.maxLength(job);
+            if (length + jobLength > MAX_INSCRIPTION_LENGTH) {
+                ++index;
+                length = JobEncoding.VERSION_2.length() + 1;
+            }
+            length += jobLength;
+            pages.get(index).jobs.add(job);
+            jobPages.put(job, pages.get(index));
+        }
+
+        for (int i = 0; i < pages.size(); ++i) {
+            Page page = pages.get(i);
+            if (!page.jobs.equals(previous.get(i)))
+                page.update();
+        }
+    }
+
+    @Override
+    public void save() {
+        try {
+            boolean renumber = false;
+            Iterator<Page> iterator = pages.iterator();
+            while (iterator.hasNext()) {
+                Page page = iterator.next();
+                if (page.jobs.isEmpty()) {
+                    if (page.item != null)
+                        Items.destroyItem(page.item.getWurmId());
+                    iterator.remove();
+                    renumber = true;
+                }
+            }
+
+            int pageNumber = 1;
+            for (Page page : pages) {
+                if (page.item == null) {
+                    page.item = WorkBook.createPage(workBookItem, "Page " + pageNumber);
+                    page.dirty = true;
+                } else if (renumber) {
+                    String description = "Page " + pageNumber;
+                    if (!page.item.getDescription().equals(description))
+                        page.item.setDescription(description);
+                }
+
+                if (page.dirty) {
+                    page.item.setInscription(page.text, "");
+                    page.dirty = false;
+                }
+                ++pageNumber;
+            }
+        } catch (NoSuchTemplateException | FailedException e) {
+            logger.severe("A server error occurred when creating a new item.  Aborting.");
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void delete() {
+        for (Page page : pages) {
+            if (page.item != null)
+                Items.destroyItem(page.item.getWurmId());
+        }
+        for (Item pageItem : pageItems) {
+            if (workBookItem.getItems().contains(pageItem))
+                Items.destroyItem(pageItem.getWurmId());
+        }
+        pages.clear();
+        pageItems.clear();
+        jobPages.clear();
+    }
+}
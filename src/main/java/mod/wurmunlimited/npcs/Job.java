@@ -2,19 +2,29 @@ package mod.wurmunlimited.npcs;
 
 import com.google.common.base.Joiner;
 import com.wurmonline.server.FailedException;
+import com.wurmonline.server.Items;
+import com.wurmonline.server.NoSuchItemException;
 import com.wurmonline.server.Servers;
 import com.wurmonline.server.TimeConstants;
+import com.wurmonline.server.WurmId;
 import com.wurmonline.server.creatures.Creature;
 import com.wurmonline.server.economy.Economy;
 import com.wurmonline.server.items.*;
 
+import java.util.logging.Logger;
+
 public class Job {
+    private static final Logger logger = Logger.getLogger(Job.class.getName());
     final long customerId;
     final Item item;
     final float targetQL;
     final boolean mailWhenDone;
     boolean done;
     private final long priceCharged;
+    // done is kept alongside state as it is what the work book counts use.
+    JobState state;
+    long queuedAt;
+    long stateSince;
 
     Job(long customerId, Item item, float targetQL, boolean mailWhenDone, long priceCharged, boolean done) {
         this.customerId = customerId;
@@ -23,17 +33,15 @@ public class Job {
         this.mailWhenDone = mailWhenDone;
         this.done = done;
         this.priceCharged = priceCharged;
+        state = done ? JobState.DONE : JobState.QUEUED;
+        queuedAt = System.currentTimeMillis();
+        stateSince = queuedAt;
     }
 
     public String toString() {
         return Joiner.on(",").join(customerId, item.getWurmId(), targetQL, mailWhenDone ? "1" : "0", priceCharged, done ? "1" : "0") + "\n";
     }
 
-    // Is it good practice to a have a separate version like this?
-    public static String toString(long customerId, Item item, float targetQL, boolean mailWhenDone, long priceCharged, boolean done) {
-        return Joiner.on(",").join(customerId, item.getWurmId(), targetQL, mailWhenDone ? "1" : "0", priceCharged, done ? "1" : "0") + "\n";
-    }
-
     public boolean isDonation() {
         return false;
     }
@@ -50,6 +58,16 @@ public class Job {
         return done;
     }
 
+    public JobState getState() {
+        return state;
+    }
+
+    void setState(JobState state, long now) {
+        this.state = state;
+        stateSince = now;
+        done = state == JobState.DONE;
+    }
+
     public boolean mailWhenDone() {
         return mailWhenDone;
     }
@@ -72,6 +90,17 @@ public class Job {
         mailToCustomer(item);
     }
 
+    // Used when a stored job cannot be read, so the customer at least gets their item back.
+    static void recoverItem(long customerId, long itemId) {
+        try {
+            // Check ids are correct type as an extra precaution.
+            if (WurmId.getType(customerId) == 0 && WurmId.getType(itemId) == 2) {
+                new Job(customerId, Items.getItem(itemId), 1, false, 0, false).mailToCustomer();
+            }
+            logger.warning("Item recovery attempted successfully.  Maybe?");
+        } catch (NoSuchItemException ignored) {}
+    }
+
     public void refundCustomer() throws NoSuchTemplateException, FailedException {
         Item box = ItemFactory.createItem(ItemList.jarPottery, 1, "");
         Item[] coins = Economy.getEconomy().getCoinsFor(priceCharged);
@@ -0,0 +1,233 @@
+package mod.wurmunlimited.npcs;
+
+import com.wurmonline.server.Items;
+import com.wurmonline.server.NoSuchItemException;
+
+import java.util.List;
+
+// Version 2 pages start with a "v2" line and write every number in base 36.  A job line is customer,item,targetQL,flags,price.
+// The customer is left empty when it is the same as the line above.  targetQL is in hundredths, rounded to the nearest as
+// most QLs are not exact floats.  flags holds mail when done, done and the JobState.  Jobs that are not done also have
+// queued,since - the second the job was queued and the seconds from then until it entered its current state.
+// A donation line is only the item id.
+// Pages without the version line are the original decimal format and are rewritten when the work book is loaded.
+final class JobEncoding {
+    static final String VERSION_2 = "v2";
+    private static final int RADIX = 36;
+    private static final int MAIL_FLAG = 1;
+    private static final int DONE_FLAG = 2;
+    private static final int STATE_SHIFT = 2;
+    // The seconds since a job was queued grow whilst it waits, so room is kept for them to reach this many digits.  36^6
+    // seconds is over 60 years, longer is written as the most that fits.
+    private static final int MAX_SINCE_DIGITS = 6;
+    private static final long MAX_SINCE = 2176782335L;
+
+    static class Entry {
+        final long customerId;
+        final long itemId;
+        final float targetQL;
+        final boolean mailWhenDone;
+        final long priceCharged;
+        final boolean done;
+        final boolean donation;
+        final JobState state;
+        // Zero when not known, e.g. original format pages.
+        final long queuedAt;
+        final long stateSince;
+
+        private Entry(long customerId, long itemId, float targetQL, boolean mailWhenDone, long priceCharged, boolean done, boolean donation) {
+            this(customerId, itemId, targetQL, mailWhenDone, priceCharged, done, donation, done ? JobState.DONE : JobState.QUEUED, 0, 0);
+        }
+
+        private Entry(long customerId, long itemId, float targetQL, boolean mailWhenDone, long priceCharged, boolean done, boolean donation,
+                      JobState state, long queuedAt, long stateSince) {
+            this.customerId = customerId;
+            this.itemId = itemId;
+            this.targetQL = targetQL;
+            this.mailWhenDone = mailWhenDone;
+            this.priceCharged = priceCharged;
+            this.done = done;
+            this.donation = donation;
+            this.state = state;
+            this.queuedAt = queuedAt;
+            this.stateSince = stateSince;
+        }
+    }
+
+    private JobEncoding() {}
+
+    static boolean isVersion2(String inscription) {
+        return inscription.startsWith(VERSION_2 + "\n") || inscription.equals(VERSION_2);
+    }
+
+    static String encodePage(List<Job> jobs) {
+        StringBuilder sb = new StringBuilder(VERSION_2.length() + 1 + jobs.size() * 24);
+        sb.append(VERSION_2).append('\n');
+        long previousCustomer = -10;
+        for (Job job : jobs) {
+            appendJob(sb, job, previousCustomer);
+            if (!job.isDonation())
+                previousCustomer = job.customerId;
+        }
+        return sb.toString();
+    }
+
+    // Length of the line when the customer is written in full and the seconds in its state have grown as far as they
+    // can.  The line written to the page can only be shorter.
+    static int maxLength(Job job) {
+        StringBuilder sb = new StringBuilder(32);
+        appendJob(sb, job, -10);
+        return sb.length() + growth(job);
+    }
+
+    // How much longer the job's line may get whilst it waits.
+    static int growth(Job job) {
+        if (job.state == JobState.DONE)
+            return 0;
+        return MAX_SINCE_DIGITS - Long.toString(since(job), RADIX).length();
+    }
+
+    private static long since(Job job) {
+        return Math.min(MAX_SINCE, Math.max(0, job.stateSince / 1000 - job.queuedAt / 1000));
+    }
+
+    // A single line with the customer written in full and no line break.
+    static String encodeLine(Job job) {
+        StringBuilder sb = new StringBuilder(32);
+        appendJob(sb, job, -10);
+        sb.setLength(sb.length() - 1);
+        return sb.toString();
+    }
+
+    // Flags and times as used in the journal, flags[,queued,since].
+    static String encodeState(Job job) {
+        StringBuilder sb = new StringBuilder(16);
+        sb.append(Integer.toString(flags(job), RADIX));
+        appendTimes(sb, job);
+        return sb.toString();
+    }
+
+    private static int flags(Job job) {
+        return (job.mailWhenDone ? MAIL_FLAG : 0) | (job.done ? DONE_FLAG : 0) | (job.state.ordinal() << STATE_SHIFT);
+    }
+
+    private static void appendTimes(StringBuilder sb, Job job) {
+        if (job.state == JobState.DONE)
+            return;
+        sb.append(',').append(Long.toString(job.queuedAt / 1000, RADIX))
+          .append(',').append(Long.toString(since(job), RADIX));
+    }
+
+    private static void appendJob(StringBuilder sb, Job job, long previousCustomer) {
+        if (job.isDonation()) {
+            sb.append(Long.toString(job.item.getWurmId(), RADIX)).append('\n');
+            return;
+        }
+
+        if (job.customerId != previousCustomer)
+            sb.append(Long.toString(job.customerId, RADIX));
+        sb.append(',').append(Long.toString(job.item.getWurmId(), RADIX))
+          .append(',').append(Integer.toString(Math.round(job.targetQL * 100), RADIX))
+          .append(',').append(Integer.toString(flags(job), RADIX))
+          .append(',').append(Long.toString(job.getPriceCharged(), RADIX));
+        appendTimes(sb, job);
+        sb.append('\n');
+    }
+
+    static Entry decode(String line, long previousCustomer) {
+        int first = line.indexOf(',');
+        if (first == -1)
+            return new Entry(0, Long.parseLong(line, RADIX), 100, false, 0, false, true);
+
+        int second = nextField(line, first);
+        int third = nextField(line, second);
+        int fourth = nextField(line, third);
+        int fifth = line.indexOf(',', fourth + 1);
+
+        long customerId = first == 0 ? previousCustomer : Long.parseLong(line.substring(0, first), RADIX);
+        if (customerId == -10)
+            throw new NumberFormatException("No previous customer - " + line);
+        long itemId = Long.parseLong(line.substring(first + 1, second), RADIX);
+        float targetQL = Integer.parseInt(line.substring(second + 1, third), RADIX) / 100.0f;
+        long priceCharged = Long.parseLong(line.substring(fourth + 1, fifth == -1 ? line.length() : fifth), RADIX);
+        Entry entry = new Entry(customerId, itemId, targetQL, false, priceCharged, false, false);
+        return withState(entry, line.substring(third + 1, fourth) + (fifth == -1 ? "" : line.substring(fifth)));
+    }
+
+    // Reads flags[,queued,since] on to the entry.
+    static Entry withState(Entry entry, String value) {
+        if (entry.donation)
+            throw new NumberFormatException("Donations have no flags - " + value);
+
+        int first = value.indexOf(',');
+        int flags = Integer.parseInt(first == -1 ? value : value.substring(0, first), RADIX);
+        int stateIndex = flags >> STATE_SHIFT;
+        if (flags < 0 || stateIndex >= JobState.values().length)
+            throw new NumberFormatException("Invalid flags - " + value);
+        boolean done = (flags & DONE_FLAG) != 0;
+        JobState state = done ? JobState.DONE : JobState.values()[stateIndex];
+        done = state == JobState.DONE;
+
+        long queuedAt = 0;
+        long stateSince = 0;
+        if (first != -1) {
+            int second = nextField(value, first);
+            if (value.indexOf(',', second + 1) != -1)
+                throw new NumberFormatException("Too many fields - " + value);
+            long queued = Long.parseLong(value.substring(first + 1, second), RADIX);
+            long since = Long.parseLong(value.substring(second + 1), RADIX);
+            queuedAt = queued * 1000;
+            stateSince = (queued + since) * 1000;
+        }
+
+        return new Entry(entry.customerId, entry.itemId, entry.targetQL, (flags & MAIL_FLAG) != 0, entry.priceCharged, done, false,
+                state, queuedAt, stateSince);
+    }
+
+    static Job toJob(Entry entry) throws NoSuchItemException {
+        if (entry.donation)
+            return new Donation(Items.getItem(entry.itemId));
+        Job job = new Job(entry.customerId, Items.getItem(entry.itemId), Math.min(entry.targetQL, CrafterMod.getSkillCap()),
+                entry.mailWhenDone, entry.priceCharged, entry.done);
+        job.state = entry.state;
+        if (entry.queuedAt != 0) {
+            job.queuedAt = entry.queuedAt;
+            job.stateSince = entry.stateSince;
+        }
+        return job;
+    }
+
+    private static int nextField(String line, int previous) {
+        int next = line.indexOf(',', previous + 1);
+        if (next == -1)
+            throw new NumberFormatException("Missing field - " + line);
+        return next;
+    }
+
+    static Entry decodeLegacy(String line) {
+        String[] values = line.split(",");
+        if (values.length == 1)
+            return new Entry(0, Long.parseLong(values[0]), 100, false, 0, false, true);
+        if (values.length < 6)
+            throw new NumberFormatException("Missing field - " + line);
+
+        return new Entry(Long.parseLong(values[0]), Long.parseLong(values[1]), Float.parseFloat(values[2]),
+                Integer.parseInt(values[3]) == 1, Long.parseLong(values[4]), Integer.parseInt(values[5]) == 1, false);
+    }
+
+    // Used to return items to their owners when the rest of a line cannot be read.
+    static long[] readIds(String line, boolean version2, long previousCustomer) {
+        String[] values = line.split(",");
+        if (values.length < 2)
+            return null;
+        try {
+            if (version2) {
+                long customerId = values[0].isEmpty() ? previousCustomer : Long.parseLong(values[0], RADIX);
+                return new long[] { customerId, Long.parseLong(values[1], RADIX) };
+            }
+            return new long[] { Long.parseLong(values[0]), Long.parseLong(values[1]) };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package mod.wurmunlimited.npcs;
+
+import com.wurmonline.server.behaviours.MethodsItems;
+import com.wurmonline.server.items.Item;
+
+// Decides what to do with a job as it is taken from the head of the queue.  Carrying out the decision - dispatching
+// actions and moving items - is left to CrafterAIData.
+class JobPlanner {
+    enum Step {
+        RETURN,
+        DONE,
+        REPAIR,
+        HEAT,
+        IMPROVE
+    }
+
+    static class Decision {
+        final Step step;
+        // -10 unless improving.
+        final int toolTemplateId;
+
+        private Decision(Step step, int toolTemplateId) {
+            this.step = step;
+            this.toolTemplateId = toolTemplateId;
+        }
+    }
+
+    private static final Decision RETURN = new Decision(Step.RETURN, -10);
+    private static final Decision DONE = new Decision(Step.DONE, -10);
+    private static final Decision REPAIR = new Decision(Step.REPAIR, -10);
+    private static final Decision HEAT = new Decision(Step.HEAT, -10);
+
+    static Decision decide(Job job, WorkBook workBook) {
+        Item item = job.item;
+        // Only needs checking before the job is first started.
+        if (job.state == JobState.QUEUED && !item.isRepairable())
+            return RETURN;
+        float qualityLevel = item.getQualityLevel();
+        if (qualityLevel >= job.targetQL ||
+                    (job.isDonation() && (!workBook.getCrafterType().hasSkillToImprove(item) || qualityLevel >= workBook.getSkillCap())))
+            return DONE;
+        if (item.getDamage() > 0.0f)
+            return REPAIR;
+        if (item.isMetal() && item.getTemperature() < CrafterAIData.targetTemperature)
+            return HEAT;
+
+        int toolTemplateId = MethodsItems.getItemForImprovement(item.getMaterial(), item.creationState);
+        if (toolTemplateId == -10)
+            toolTemplateId = MethodsItems.getImproveTemplateId(item);
+        return new Decision(Step.IMPROVE, toolTemplateId);
+    }
+}
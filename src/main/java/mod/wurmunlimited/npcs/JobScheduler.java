@@ -0,0 +1,119 @@
+package mod.wurmunlimited.npcs;
+
+import com.wurmonline.server.items.Item;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+// Decides which jobs the crafter looks at each tick.  Jobs that cannot progress are set aside with the condition they
+// are waiting on and only moved back to the ready queue once it is met, instead of re-checking every job each tick.
+class JobScheduler {
+    enum Condition {
+        HEATING_ITEM,
+        HEATING_LUMP,
+        NO_FORGE
+    }
+
+    private final Deque<Job> ready = new ArrayDeque<>();
+    // The item being heated for each waiting job, null for NO_FORGE.
+    private final Map<Condition, Map<Job, Item>> waiting = new EnumMap<>(Condition.class);
+    private int workBookModCount = -1;
+
+    JobScheduler() {
+        for (Condition condition : Condition.values())
+            waiting.put(condition, new LinkedHashMap<>());
+    }
+
+    // Rebuilt from the work book whenever jobs have been added or removed, e.g. after a trade.  Returns true if rebuilt.
+    boolean update(WorkBook workBook, boolean hasForge) {
+        if (workBook.getModCount() != workBookModCount) {
+            workBookModCount = workBook.getModCount();
+            ready.clear();
+            for (Map<Job, Item> jobs : waiting.values())
+                jobs.clear();
+            for (Job job : workBook) {
+                if (!job.done)
+                    ready.addLast(job);
+            }
+            return true;
+        }
+
+        if (!hasForge) {
+            wakeAll(Condition.HEATING_ITEM);
+            wakeAll(Condition.HEATING_LUMP);
+        } else {
+            wakeAll(Condition.NO_FORGE);
+            wakeHeated(Condition.HEATING_ITEM);
+            wakeHeated(Condition.HEATING_LUMP);
+        }
+        return false;
+    }
+
+    private void wakeAll(Condition condition) {
+        Map<Job, Item> jobs = waiting.get(condition);
+        if (!jobs.isEmpty()) {
+            ready.addAll(jobs.keySet());
+            jobs.clear();
+        }
+    }
+
+    // When several items are hot at once the hottest is worked on first, as it will be the last to cool down.
+    private void wakeHeated(Condition condition) {
+        List<Map.Entry<Job, Item>> heated = null;
+        Iterator<Map.Entry<Job, Item>> iterator = waiting.get(condition).entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Job, Item> entry = iterator.next();
+            if (entry.getValue().getTemperature() >= CrafterAIData.targetTemperature) {
+                if (heated == null)
+                    heated = new ArrayList<>();
+                heated.add(entry);
+                iterator.remove();
+            }
+        }
+
+        if (heated != null) {
+            heated.sort((a, b) -> Short.compare(b.getValue().getTemperature(), a.getValue().getTemperature()));
+            for (Map.Entry<Job, Item> entry : heated)
+                ready.addLast(entry.getKey());
+        }
+    }
+
+    int readyCount() {
+        return ready.size();
+    }
+
+    @Nullable
+    Job next() {
+        return ready.pollFirst();
+    }
+
+    // The job is still being worked on, so it is first again next tick.
+    void keep(Job job) {
+        ready.addFirst(job);
+    }
+
+    void retryLater(Job job) {
+        ready.addLast(job);
+    }
+
+    void waitFor(Job job, Condition condition, @Nullable Item heating) {
+        waiting.get(condition).put(job, heating);
+    }
+
+    // Cheap enough to be checked every tick whilst the crafter is parked.
+    boolean hasHeated() {
+        for (Item item : waiting.get(Condition.HEATING_ITEM).values()) {
+            if (item.getTemperature() >= CrafterAIData.targetTemperature)
+                return true;
+        }
+        for (Item item : waiting.get(Condition.HEATING_LUMP).values()) {
+            if (item.getTemperature() >= CrafterAIData.targetTemperature)
+                return true;
+        }
+        return false;
+    }
+
+    boolean isWaitingForHeat() {
+        return !waiting.get(Condition.HEATING_ITEM).isEmpty() || !waiting.get(Condition.HEATING_LUMP).isEmpty();
+    }
+}
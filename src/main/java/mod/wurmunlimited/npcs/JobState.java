@@ -0,0 +1,15 @@
+package mod.wurmunlimited.npcs;
+
+public enum JobState {
+    QUEUED("waiting in the queue"),
+    REPAIRING("repairing"),
+    HEATING("heating"),
+    IMPROVING("improving"),
+    DONE("waiting for collection");
+
+    final String description;
+
+    JobState(String description) {
+        this.description = description;
+    }
+}
@@ -0,0 +1,26 @@
+package mod.wurmunlimited.npcs;
+
+import java.util.List;
+
+// Where a WorkBook keeps its jobs.  The header (skill cap, forge and crafter type) always stays on the contents page.
+interface JobStore {
+    // Jobs in the order they were added.
+    List<Job> load();
+
+    // Used to move jobs over when the configured store is changed.
+    boolean hasJobs();
+
+    boolean hasSpaceFor(List<Job> toAdd);
+
+    void add(Job job) throws WorkBook.WorkBookFull;
+
+    void remove(Job job);
+
+    void update(Job job);
+
+    // Write any changes since the last save.
+    void save();
+
+    // Remove every job from the store, used once the jobs have been moved or the crafter is dismissed.
+    void delete();
+}
@@ -0,0 +1,184 @@
+package mod.wurmunlimited.npcs;
+
+import com.wurmonline.server.NoSuchItemException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.logging.Logger;
+
+// Jobs kept in an append-only file under the server folder, one record per change -
+// +<job line> when added, -<item id> when removed and *<item id>,<flags>[,<queued>,<since>] when updated.  Ids and flags are in base 36
+// as on the version 2 pages.  The file is rewritten with only the current jobs once it has built up too many records.
+class JournalJobStore implements JobStore {
+    private static final Logger logger = Logger.getLogger(JournalJobStore.class.getName());
+    private static final int MAX_JOBS = 1000;
+    private static final int MIN_RECORDS_BEFORE_COMPACTING = 32;
+    static Path directory = Paths.get("crafters");
+    private final Path path;
+    private final Set<Job> jobs = new LinkedHashSet<>();
+    private final List<String> pending = new ArrayList<>();
+    private int records = 0;
+
+    JournalJobStore(long workBookId) {
+        path = directory.resolve("workbook_" + workBookId + ".journal");
+    }
+
+    @Override
+    public List<Job> load() {
+        jobs.clear();
+        pending.clear();
+        if (!Files.exists(path))
+            return new ArrayList<>();
+
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            logger.severe("Could not read job journal - " + path);
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+
+        boolean compact = false;
+        Map<Long, JobEncoding.Entry> entries = new LinkedHashMap<>();
+        for (String line : lines) {
+            try {
+                if (line.isEmpty())
+                    throw new NumberFormatException("Empty record");
+                String record = line.substring(1);
+                switch (line.charAt(0)) {
+                    case '+':
+                        JobEncoding.Entry entry = JobEncoding.decode(record, -10);
+                        entries.put(entry.itemId, entry);
+                        break;
+                    case '-':
+                        entries.remove(Long.parseLong(record, 36));
+                        break;
+                    case '*':
+                        int comma = record.indexOf(',');
+                        if (comma == -1)
+                            throw new NumberFormatException("Missing flags - " + line);
+                        long itemId = Long.parseLong(record.substring(0, comma), 36);
+                        JobEncoding.Entry previous = entries.get(itemId);
+                        if (previous != null)
+                            entries.put(itemId, JobEncoding.withState(previous, record.substring(comma + 1)));
+                        break;
+                    default:
+                        throw new NumberFormatException("Unknown record - " + line);
+                }
+            } catch (NumberFormatException e) {
+                logger.warning("Invalid record in job journal - " + line);
+                compact = true;
+            }
+        }
+
+        for (JobEncoding.Entry entry : entries.values()) {
+            try {
+                jobs.add(JobEncoding.toJob(entry));
+            } catch (NoSuchItemException e) {
+                logger.warning("Could not find job item - " + entry.itemId + ".  Removing.");
+                if (!entry.donation)
+                    Job.recoverItem(entry.customerId, entry.itemId);
+                compact = true;
+            }
+        }
+
+        records = lines.size();
+        if (compact || needsCompacting(0))
+            compact();
+        return new ArrayList<>(jobs);
+    }
+
+    @Override
+    public boolean hasJobs() {
+        return Files.exists(path);
+    }
+
+    @Override
+    public boolean hasSpaceFor(List<Job> toAdd) {
+        return jobs.size() + toAdd.size() <= MAX_JOBS;
+    }
+
+    @Override
+    public void add(Job job) throws WorkBook.WorkBookFull {
+        if (jobs.size() >= MAX_JOBS)
+            throw new WorkBook.WorkBookFull("Work book is already full.");
+        jobs.add(job);
+        pending.add("+" + JobEncoding.encodeLine(job));
+    }
+
+    @Override
+    public void remove(Job job) {
+        if (jobs.remove(job))
+            pending.add("-" + Long.toString(job.item.getWurmId(), 36));
+    }
+
+    @Override
+    public void update(Job job) {
+        if (jobs.contains(job))
+            pending.add("*" + Long.toString(job.item.getWurmId(), 36) + "," + JobEncoding.encodeState(job));
+    }
+
+    private boolean needsCompacting(int newRecords) {
+        return records + newRecords > jobs.size() * 2 + MIN_RECORDS_BEFORE_COMPACTING;
+    }
+
+    @Override
+    public void save() {
+        if (pending.isEmpty())
+            return;
+
+        if (needsCompacting(pending.size())) {
+            compact();
+            return;
+        }
+
+        try {
+            Files.createDirectories(directory);
+            Files.write(path, pending, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            records += pending.size();
+            pending.clear();
+        } catch (IOException e) {
+            // Pending records are kept and written on the next save.
+            logger.severe("Could not write to job journal - " + path);
+            e.printStackTrace();
+        }
+    }
+
+    private void compact() {
+        List<String> lines = new ArrayList<>(jobs.size());
+        for (Job job : jobs)
+            lines.add("+" + JobEncoding.encodeLine(job));
+
+        try {
+            Files.createDirectories(directory);
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            Files.write(temp, lines, StandardCharsets.UTF_8);
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            records = lines.size();
+            pending.clear();
+        } catch (IOException e) {
+            logger.severe("Could not compact job journal - " + path);
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void delete() {
+        jobs.clear();
+        pending.clear();
+        records = 0;
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warning("Could not delete job journal - " + path);
+            e.printStackTrace();
+        }
+    }
+}
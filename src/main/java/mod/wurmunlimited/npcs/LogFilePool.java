@@ -0,0 +1,252 @@
+package mod.wurmunlimited.npcs;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.*;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.*;
+import java.util.zip.GZIPOutputStream;
+
+// Log files for crafters and workers, with a limit on how many are open at once.  The least recently written file is
+// closed to make room, as are files that have not been written to for a while, and they are opened again when next
+// written to.  Files over the size or age limit are rolled over, and the old file compressed in the background.
+public class LogFilePool {
+    private static final Logger logger = Logger.getLogger(LogFilePool.class.getName());
+    private static final long idleCheckInterval = 60000;
+    private final int maxOpen;
+    // 0 for no limit.
+    private final long maxBytes;
+    private final long maxAgeMillis;
+    private final long idleMillis;
+    private final Map<Path, OpenFile> open;
+    // When each file was started, kept whilst it is closed for being idle or to make room so its age carries over when it
+    // is reopened, and forgotten once its handler is closed.  File creation times cannot be used, as many filesystems
+    // only give the last modified time instead.  Files left from before the server started, or from a handler that was
+    // closed, are aged from when they are next opened.
+    private final Map<Path, Long> startedAt = new HashMap<>();
+    private final ExecutorService compressor;
+    private long lastIdleCheck = 0;
+
+    private static class OpenFile {
+        private final OutputStream out;
+        private final long createdAt;
+        private long bytes;
+        private long lastWrite;
+
+        private OpenFile(OutputStream out, long createdAt, long bytes) {
+            this.out = out;
+            this.createdAt = createdAt;
+            this.bytes = bytes;
+        }
+    }
+
+    private class PooledHandler extends Handler {
+        private final Path path;
+        private final boolean autoFlush;
+
+        private PooledHandler(Path path, boolean autoFlush) {
+            this.path = path;
+            this.autoFlush = autoFlush;
+            setFormatter(new SimpleFormatter());
+        }
+
+        @Override
+        public void publish(LogRecord record) {
+            if (!isLoggable(record))
+                return;
+            String text;
+            try {
+                text = getFormatter().format(record);
+            } catch (RuntimeException e) {
+                reportError(null, e, ErrorManager.FORMAT_FAILURE);
+                return;
+            }
+            try {
+                write(path, text.getBytes(Charset.defaultCharset()), autoFlush);
+            } catch (IOException e) {
+                reportError(null, e, ErrorManager.WRITE_FAILURE);
+            }
+        }
+
+        @Override
+        public void flush() {
+            LogFilePool.this.flush(path);
+        }
+
+        @Override
+        public void close() {
+            release(path);
+        }
+    }
+
+    public LogFilePool(int maxOpen, long maxBytes, long maxAgeMillis, long idleMillis) {
+        this.maxOpen = Math.max(1, maxOpen);
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAgeMillis;
+        this.idleMillis = idleMillis;
+        open = new LinkedHashMap<Path, OpenFile>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, OpenFile> eldest) {
+                if (size() > LogFilePool.this.maxOpen) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+        compressor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Crafter log compressor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Handlers with autoFlush write each record straight to disk, otherwise they are written when the handler is flushed.
+    public Handler getHandler(String fileName, boolean autoFlush) {
+        return new PooledHandler(Paths.get(fileName), autoFlush);
+    }
+
+    synchronized int getOpenCount() {
+        return open.size();
+    }
+
+    synchronized int getStartedCount() {
+        return startedAt.size();
+    }
+
+    private synchronized void write(Path path, byte[] bytes, boolean flush) throws IOException {
+        long now = System.currentTimeMillis();
+        OpenFile file = open.get(path);
+        if (file != null && needsRolling(file.createdAt, file.bytes + bytes.length, now)) {
+            closeQuietly(open.remove(path));
+            roll(path);
+            file = null;
+        }
+
+        if (file == null) {
+            file = openFile(path, bytes.length, now);
+            open.put(path, file);
+        }
+        file.out.write(bytes);
+        file.bytes += bytes.length;
+        file.lastWrite = now;
+        if (flush)
+            file.out.flush();
+    }
+
+    private OpenFile openFile(Path path, int toWrite, long now) throws IOException {
+        if (Files.exists(path)) {
+            long createdAt = startedAt.computeIfAbsent(path, p -> now);
+            long size = Files.size(path);
+            if (needsRolling(createdAt, size + toWrite, now))
+                roll(path);
+            else
+                return new OpenFile(new BufferedOutputStream(new FileOutputStream(path.toFile(), true)), createdAt, size);
+        }
+        startedAt.put(path, now);
+        return new OpenFile(new BufferedOutputStream(new FileOutputStream(path.toFile(), true)), now, 0);
+    }
+
+    private boolean needsRolling(long createdAt, long bytes, long now) {
+        return (maxBytes > 0 && bytes > maxBytes) || (maxAgeMillis > 0 && now - createdAt > maxAgeMillis);
+    }
+
+    // Moves the file aside and compresses it, e.g. crafter_Bob_1234.log to crafter_Bob_1234.20200101-120000.log.gz.
+    private void roll(Path path) throws IOException {
+        String name = path.getFileName().toString();
+        String base = name.endsWith(".log") ? name.substring(0, name.length() - 4) : name;
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        Path rolled = path.resolveSibling(base + "." + stamp + ".log");
+        for (int i = 1; Files.exists(rolled) || Files.exists(rolled.resolveSibling(rolled.getFileName() + ".gz")); ++i)
+            rolled = path.resolveSibling(base + "." + stamp + "-" + i + ".log");
+        Files.move(path, rolled);
+
+        Path toCompress = rolled;
+        if (compressor.isShutdown())
+            compress(toCompress);
+        else
+            compressor.execute(() -> compress(toCompress));
+    }
+
+    private static void compress(Path path) {
+        Path compressed = path.resolveSibling(path.getFileName() + ".gz");
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(compressed.toFile()))) {
+            Files.copy(path, out);
+        } catch (IOException e) {
+            logger.warning("Could not compress " + path + ", it was left uncompressed.");
+            try {
+                Files.deleteIfExists(compressed);
+            } catch (IOException ignored) {}
+            return;
+        }
+        try {
+            Files.delete(path);
+        } catch (IOException e) {
+            logger.warning("Could not delete " + path + " after compressing it.");
+        }
+    }
+
+    private synchronized void flush(Path path) {
+        OpenFile file = open.get(path);
+        if (file != null) {
+            try {
+                file.out.flush();
+            } catch (IOException e) {
+                logger.warning("Could not flush " + path + ".");
+            }
+        }
+    }
+
+    private synchronized void release(Path path) {
+        closeQuietly(open.remove(path));
+        startedAt.remove(path);
+    }
+
+    // Closes files not written to recently.  Only checks once a minute however often it is called.
+    public synchronized void closeIdle() {
+        long now = System.currentTimeMillis();
+        if (idleMillis <= 0 || now - lastIdleCheck < idleCheckInterval)
+            return;
+        lastIdleCheck = now;
+        closeIdle(now);
+    }
+
+    synchronized void closeIdle(long now) {
+        Iterator<OpenFile> iterator = open.values().iterator();
+        while (iterator.hasNext()) {
+            OpenFile file = iterator.next();
+            if (now - file.lastWrite > idleMillis) {
+                closeQuietly(file);
+                iterator.remove();
+            }
+        }
+    }
+
+    // Closes every file and waits a short while for compression to finish.
+    public synchronized void shutdown() {
+        for (OpenFile file : open.values())
+            closeQuietly(file);
+        open.clear();
+        startedAt.clear();
+        compressor.shutdown();
+        try {
+            compressor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeQuietly(OpenFile file) {
+        if (file != null) {
+            try {
+                file.out.close();
+            } catch (IOException e) {
+                logger.warning("Could not close log file.");
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package mod.wurmunlimited.npcs;
+
+import java.util.Arrays;
+
+// Set of longs without boxing, for ids looked up on hot paths.  Open addressing with linear probing, 0 is used to mark
+// empty slots so is tracked separately.
+public class LongHashSet {
+    private static final long EMPTY = 0;
+    private long[] keys;
+    private int mask;
+    private int size = 0;
+    private boolean containsEmpty = false;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        int capacity = 4;
+        while (capacity < expectedSize * 2)
+            capacity <<= 1;
+        keys = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    public LongHashSet(LongHashSet other) {
+        keys = other.keys.clone();
+        mask = other.mask;
+        size = other.size;
+        containsEmpty = other.containsEmpty;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int)(h ^ (h >>> 32));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(long key) {
+        if (key == EMPTY)
+            return containsEmpty;
+        int i = hash(key) & mask;
+        while (true) {
+            long current = keys[i];
+            if (current == key)
+                return true;
+            if (current == EMPTY)
+                return false;
+            i = (i + 1) & mask;
+        }
+    }
+
+    public boolean add(long key) {
+        if (key == EMPTY) {
+            if (containsEmpty)
+                return false;
+            containsEmpty = true;
+            ++size;
+            return true;
+        }
+
+        int i = hash(key) & mask;
+        while (true) {
+            long current = keys[i];
+            if (current == key)
+                return false;
+            if (current == EMPTY) {
+                keys[i] = key;
+                ++size;
+                if (size * 2 > keys.length)
+                    resize(keys.length * 2);
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    public boolean remove(long key) {
+        if (key == EMPTY) {
+            if (!containsEmpty)
+                return false;
+            containsEmpty = false;
+            --size;
+            return true;
+        }
+
+        int i = hash(key) & mask;
+        while (keys[i] != key) {
+            if (keys[i] == EMPTY)
+                return false;
+            i = (i + 1) & mask;
+        }
+
+        // Later keys in the same run are moved back into the gap, so lookups for them do not stop early.
+        int gap = i;
+        int j = (i + 1) & mask;
+        while (keys[j] != EMPTY) {
+            int home = hash(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                gap = j;
+            }
+            j = (j + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        --size;
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        containsEmpty = false;
+    }
+
+    private void resize(int capacity) {
+        long[] old = keys;
+        keys = new long[capacity];
+        mask = capacity - 1;
+        for (long key : old) {
+            if (key != EMPTY) {
+                int i = hash(key) & mask;
+                while (keys[i] != EMPTY)
+                    i = (i + 1) & mask;
+                keys[i] = key;
+            }
+        }
+    }
+}
@@ -4,30 +4,37 @@ import com.google.common.base.Joiner;
 import com.wurmonline.server.FailedException;
 import com.wurmonline.server.Items;
 import com.wurmonline.server.NoSuchItemException;
-import com.wurmonline.server.WurmId;
 import com.wurmonline.server.creatures.Creature;
 import com.wurmonline.server.creatures.ai.CreatureAIData;
 import com.wurmonline.server.items.*;
 import com.wurmonline.shared.exceptions.WurmServerException;
 
 import javax.annotation.Nonnull;
-import javax.annotation.Nullable;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 public class WorkBook implements Iterable<Job> {
     private final Logger logger = Logger.getLogger(WorkBook.class.getName());
-    private static final int MAX_INSCRIPTION_LENGTH = 500;
     static final String workBookDescription = "Work Book";
     @SuppressWarnings("WeakerAccess")
     public final Item workBookItem;
-    Item forge;
+    final List<Item> forges = new ArrayList<>();
     private final CrafterType crafterType;
     private float skillCap;
-    private final List<Job> jobs = new ArrayList<>();
     private final Map<Item, Job> jobItems = new HashMap<>();
+    // Customer jobs and donations are kept apart so jobs are always worked on first.
+    private final List<Job> customerJobs = new ArrayList<>();
+    private final List<Job> donations = new ArrayList<>();
+    private final Map<Long, List<Job>> customerIndex = new HashMap<>();
+    private int todo = 0;
+    private int done = 0;
+    private long moneyToCollect = 0;
+    private int modCount = 0;
+    private Item contentsPage;
+    private JobStore jobStore;
+    private boolean deferSaves = false;
+    private boolean unsaved = false;
+    private long lastSaved = 0;
 
     public static class NoWorkBookOnWorker extends WurmServerException {
         NoWorkBookOnWorker(String message) {
@@ -52,11 +59,11 @@ public class WorkBook implements Iterable<Job> {
             throw new InvalidWorkBookInscription("Work book item does not fit the criteria.");
         this.workBookItem = workBookItem;
 
-        Iterator<Item> pages = workBookItem.getItems().stream().sorted(Comparator.comparing(Item::getDescription)).iterator();
+        Iterator<Item> pages = workBookItem.getItems().stream().sorted(Comparator.comparingInt(WorkBook::getPageNumber)).iterator();
         if (!pages.hasNext())
             throw new InvalidWorkBookInscription("No contents page found.");
 
-        Item contentsPage = pages.next();
+        contentsPage = pages.next();
         InscriptionData contentsInscription = contentsPage.getInscription();
         if (contentsInscription == null)
             throw new InvalidWorkBookInscription("Contents page (" + contentsPage.getWurmId() + ") has no inscription.");
@@ -77,21 +84,27 @@ public class WorkBook implements Iterable<Job> {
             rewriteHeader = true;
         }
 
-        try {
-            long forgeId = Long.parseLong(header[1]);
-            if (forgeId != -10) {
-                try {
-                    forge = Items.getItem(forgeId);
-                } catch (NoSuchItemException e) {
-                    logger.warning("Could not find forge - " + forgeId + ".  Was it destroyed?  Removing.");
-                    e.printStackTrace();
-                    header[1] = "-10";
-                    rewriteHeader = true;
+        // Forge ids are comma separated, -10 when there are none.
+        boolean removedForge = false;
+        for (String value : header[1].split(",")) {
+            try {
+                long forgeId = Long.parseLong(value);
+                if (forgeId != -10) {
+                    try {
+                        forges.add(Items.getItem(forgeId));
+                    } catch (NoSuchItemException e) {
+                        logger.warning("Could not find forge - " + forgeId + ".  Was it destroyed?  Removing.");
+                        e.printStackTrace();
+                        removedForge = true;
+                    }
                 }
+            } catch (NumberFormatException e) {
+                logger.warning("Invalid forge id in workbook (" + value + ") - Removing.");
+                removedForge = true;
             }
-        } catch (NumberFormatException e) {
-            logger.warning("Invalid forge id in workbook (" + header[1] + ") - Removing.");
-            header[1] = "-10";
+        }
+        if (removedForge) {
+            header[1] = getForgeIds();
             rewriteHeader = true;
         }
 
@@ -113,53 +126,49 @@ public class WorkBook implements Iterable<Job> {
             throw new InvalidWorkBookInscription("Invalid work book crafter type - " + header[0]);
         }
 
-        AtomicBoolean reSave = new AtomicBoolean(false);
-        pages.forEachRemaining(page -> {
-            InscriptionData inscription = page.getInscription();
-            if (inscription == null) {
-                logger.warning(page.getName() + " in workbook has no inscription.  Removing.");
-                Items.destroyItem(page.getWurmId());
-            } else {
-                String[] lines = inscription.getInscription().split("\n");
-                for (String line : lines) {
-                    String[] values = line.split(",");
+        List<Item> pageItems = new ArrayList<>();
+        pages.forEachRemaining(pageItems::add);
+        JobStore inscriptions = new InscriptionJobStore(workBookItem, pageItems);
+        JobStore journal = new JournalJobStore(workBookItem.getWurmId());
+        if (CrafterMod.getJobStore() == CrafterMod.JobStoreOption.journal) {
+            jobStore = journal;
+            loadJobs(inscriptions);
+        } else {
+            jobStore = inscriptions;
+            loadJobs(journal);
+        }
+    }
 
-                    try {
-                        if (values.length == 1) {
-                            addDonation(Items.getItem(Long.parseLong(values[0])), false);
-                        } else {
-                            addJob(Long.parseLong(values[0]), Items.getItem(Long.parseLong(values[1])), Float.parseFloat(values[2]),
-                                Integer.parseInt(values[3]) == 1, Long.parseLong(values[4]), Integer.parseInt(values[5]) == 1, false);
-                        }
-                    } catch (ArrayIndexOutOfBoundsException | NoSuchItemException | NumberFormatException e) {
-                        logger.warning("Invalid line in workbook - " + line);
-                        // Try to recover owner and item.
-                        try {
-                            if (values.length >= 2 && values[0] != null && values[1] != null) {
-                                long customerId = Long.parseLong(values[0]);
-                                long itemId = Long.parseLong(values[1]);
-
-                                // Check ids are correct type as an extra precaution.
-                                if (WurmId.getType(customerId) == 0 && WurmId.getType(itemId) == 2) {
-                                    new Job(customerId, Items.getItem(itemId), 1, false, 0, false).mailToCustomer();
-                                }
-                                logger.warning("Item recovery attempted successfully.  Maybe?");
-                            }
-                        } catch (NumberFormatException | NoSuchItemException ignored) {}
-                        // Re save workbook after loading the rest of the entries.
-                        reSave.set(true);
-                        e.printStackTrace();
-                    } catch (WorkBookFull ignored) {}
-                    // Exception should never happen as saveWorkbook is never called this way.
-                }
+    // Jobs left in the other store are moved over, unless they will not fit in which case the other store is kept instead.
+    private void loadJobs(JobStore other) {
+        List<Job> loaded = jobStore.load();
+        if (other.hasJobs()) {
+            List<Job> moving = other.load();
+            JobStore from = other;
+            if (!jobStore.hasSpaceFor(moving)) {
+                logger.warning("Not enough space to move " + moving.size() + " jobs for work book " + workBookItem.getWurmId() + ", keeping the previous job store.");
+                from = jobStore;
+                jobStore = other;
+                List<Job> swap = loaded;
+                loaded = moving;
+                moving = swap;
             }
-        });
 
-        if (reSave.get()) {
             try {
-                saveWorkBook();
-            } catch (WorkBookFull ignored) {}
+                for (Job job : moving)
+                    jobStore.add(job);
+                loaded.addAll(moving);
+                jobStore.save();
+                from.delete();
+                logger.info("Moved " + moving.size() + " jobs to " + jobStore.getClass().getSimpleName() + " for work book " + workBookItem.getWurmId() + ".");
+            } catch (WorkBookFull e) {
+                logger.severe("Could not move jobs for work book " + workBookItem.getWurmId() + ".");
+                e.printStackTrace();
+            }
         }
+
+        for (Job job : loaded)
+            register(job);
     }
 
     private WorkBook(CrafterType crafterType, float skillCap) throws NoSuchTemplateException, FailedException {
@@ -168,11 +177,14 @@ public class WorkBook implements Iterable<Job> {
         workBookItem = ItemFactory.createItem(ItemList.book, 10.0f, "");
         workBookItem.setDescription(workBookDescription);
         workBookItem.setHasNoDecay(true);
-        Item page = getNewPage("Contents");
-        page.setInscription(Joiner.on("\n").join(this.skillCap, -10, (Object[])crafterType.getAllTypes()), "");
+        contentsPage = createPage(workBookItem, "Contents");
+        writeHeader();
+        jobStore = CrafterMod.getJobStore() == CrafterMod.JobStoreOption.journal
+                           ? new JournalJobStore(workBookItem.getWurmId())
+                           : new InscriptionJobStore(workBookItem, new ArrayList<>());
     }
 
-    private Item getNewPage(String description) throws NoSuchTemplateException, FailedException {
+    static Item createPage(Item workBookItem, String description) throws NoSuchTemplateException, FailedException {
         Item page = ItemFactory.createItem(ItemList.papyrusSheet, 10.0f, "");
         page.setDescription(description);
         page.setHasNoDecay(true);
@@ -180,27 +192,77 @@ public class WorkBook implements Iterable<Job> {
         return page;
     }
 
+    // Only the job last returned may be removed whilst iterating.  Adding or removing any other job skips or repeats jobs.
     @Nonnull
     public Iterator<Job> iterator() {
         return new Iterator<Job>() {
-            private Iterator<Job> jobIterator = jobs.stream().filter(job -> !job.isDonation()).iterator();
-            private Iterator<Job> donationsIterator = jobs.stream().filter(Job::isDonation).iterator();
+            private int index = 0;
+            private Job last = null;
 
             @Override
             public boolean hasNext() {
-                return jobIterator.hasNext() || donationsIterator.hasNext();
+                // The last job may have been removed whilst iterating, e.g. when it was returned to the customer.
+                if (last != null && index > 0 && get(index - 1) != last) {
+                    --index;
+                    last = null;
+                }
+                return index < customerJobs.size() + donations.size();
             }
 
             @Override
             public Job next() {
-                if (jobIterator.hasNext())
-                    return jobIterator.next();
-                else
-                    return donationsIterator.next();
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                last = get(index++);
+                return last;
+            }
+
+            private Job get(int i) {
+                if (i < customerJobs.size())
+                    return customerJobs.get(i);
+                i -= customerJobs.size();
+                return i < donations.size() ? donations.get(i) : null;
             }
         };
     }
 
+    private void register(Job job) {
+        ++modCount;
+        jobItems.put(job.item, job);
+        if (job.isDonation()) {
+            donations.add(job);
+        } else {
+            customerJobs.add(job);
+            customerIndex.computeIfAbsent(job.customerId, k -> new ArrayList<>()).add(job);
+        }
+        count(job, 1);
+    }
+
+    private void unregister(Job job) {
+        ++modCount;
+        if (job.isDonation()) {
+            donations.remove(job);
+        } else {
+            customerJobs.remove(job);
+            List<Job> forCustomer = customerIndex.get(job.customerId);
+            if (forCustomer != null) {
+                forCustomer.remove(job);
+                if (forCustomer.isEmpty())
+                    customerIndex.remove(job.customerId);
+            }
+        }
+        count(job, -1);
+    }
+
+    private void count(Job job, int change) {
+        if (job.done)
+            done += change;
+        else if (!job.isDonation())
+            todo += change;
+        if (job.isDone())
+            moneyToCollect += change * job.getPriceCharged();
+    }
+
     public float getSkillCap() {
         return skillCap;
     }
@@ -213,6 +275,16 @@ public class WorkBook implements Iterable<Job> {
         return new WorkBook(crafterType, skillLevel);
     }
 
+    private static int getPageNumber(Item page) {
+        String description = page.getDescription();
+        if (description.startsWith("Page ")) {
+            try {
+                return Integer.parseInt(description.substring(5));
+            } catch (NumberFormatException ignored) {}
+        }
+        return description.equals("Contents") ? 0 : Integer.MAX_VALUE;
+    }
+
     public static boolean isWorkBook(Item item) {
         return item.getTemplateId() == ItemList.book && item.getDescription().equals(workBookDescription) && item.getItemCount() > 0;
     }
@@ -225,20 +297,26 @@ public class WorkBook implements Iterable<Job> {
             throw new NoWorkBookOnWorker("Not a Worker or no work book found.");
     }
 
+    // Changes whenever a job is added or removed.
+    int getModCount() {
+        return modCount;
+    }
+
     public int todo() {
-        return (int)jobs.stream().filter(job -> !job.done && !job.isDonation()).count();
+        return todo;
     }
 
     public int done() {
-        return (int)jobs.stream().filter(job -> job.done).count();
+        return done;
     }
 
     public List<Job> getJobsFor(Creature creature) {
-        return jobs.stream().filter(job -> job.customerId == creature.getWurmId()).collect(Collectors.toList());
+        List<Job> jobs = customerIndex.get(creature.getWurmId());
+        return jobs == null ? Collections.emptyList() : Collections.unmodifiableList(jobs);
     }
 
     public boolean isForgeAssigned() {
-        return forge != null;
+        return !forges.isEmpty();
     }
 
     public boolean isJobItem(Item item) {
@@ -246,131 +324,179 @@ public class WorkBook implements Iterable<Job> {
     }
 
     public void addJob(long customerId, Item item, float targetQL, boolean mailWhenDone, long priceCharged) throws WorkBookFull {
-        addJob(customerId, item, targetQL, mailWhenDone, priceCharged, false, true);
+        JobBatch batch = new JobBatch();
+        batch.addJob(customerId, item, targetQL, mailWhenDone, priceCharged);
+        addJobs(batch);
     }
 
-    private void addJob(long customerId, Item item, float targetQL, boolean mailWhenDone, long priceCharged, boolean done, boolean save) throws WorkBookFull {
-        targetQL = Math.min(targetQL, CrafterMod.getSkillCap());
-        jobs.add(new Job(customerId, item, targetQL, mailWhenDone, priceCharged, done));
-        jobItems.put(item, jobs.get(jobs.size() - 1));
-        if (save)
-            saveWorkBook();
+    public void addDonation(Item item) throws WorkBookFull {
+        JobBatch batch = new JobBatch();
+        batch.addDonation(item);
+        addJobs(batch);
+    }
+
+    public JobBatch newBatch() {
+        return new JobBatch();
+    }
+
+    // All jobs are added or, if there is not enough space for every one of them, none are.
+    public void addJobs(JobBatch batch) throws WorkBookFull {
+        if (batch.jobs.isEmpty())
+            return;
+        if (!jobStore.hasSpaceFor(batch.jobs))
+            throw new WorkBookFull("Work book is already full.");
+
+        for (Job job : batch.jobs) {
+            jobStore.add(job);
+            register(job);
+        }
+        batch.jobs.clear();
+        saveWorkBook();
     }
 
     public void removeJob(Item item) {
+        if (removeJobWithoutSaving(item))
+            changed();
+    }
+
+    public void removeJobs(Collection<Item> items) {
+        boolean removed = false;
+        for (Item item : items) {
+            if (removeJobWithoutSaving(item))
+                removed = true;
+        }
+        if (removed)
+            saveWorkBook();
+    }
+
+    private boolean removeJobWithoutSaving(Item item) {
         Job job = jobItems.remove(item);
-        jobs.remove(job);
-        try {
+        if (job == null)
+            return false;
+        unregister(job);
+        jobStore.remove(job);
+        return true;
+    }
+
+    private void writeHeader() {
+        contentsPage.setInscription(Joiner.on("\n").join(skillCap, getForgeIds(), (Object[])crafterType.getAllTypes()), "");
+    }
+
+    private String getForgeIds() {
+        if (forges.isEmpty())
+            return "-10";
+        StringBuilder sb = new StringBuilder();
+        for (Item forge : forges) {
+            if (sb.length() > 0)
+                sb.append(',');
+            sb.append(forge.getWurmId());
+        }
+        return sb.toString();
+    }
+
+    // Changes made by the crafter during a poll are only written by endDeferredSaves, so there is at most one save per poll.
+    void startDeferredSaves() {
+        deferSaves = true;
+    }
+
+    void endDeferredSaves() {
+        deferSaves = false;
+        if (unsaved && System.currentTimeMillis() - lastSaved >= CrafterMod.getWorkBookSaveInterval())
             saveWorkBook();
-        } catch (WorkBookFull ignored) {}
-        // Exception should never happen as removeJob should only be reducing the page count.
     }
 
-    public void addDonation(Item item) throws WorkBookFull {
-        addDonation(item, true);
+    // Writes any changes still waiting, used when the crafter is dismissed or the server shuts down.
+    public void flush() {
+        if (unsaved)
+            saveWorkBook();
     }
 
-    private void addDonation(Item item, boolean save) throws WorkBookFull {
-        jobs.add(new Donation(item));
-        jobItems.put(item, jobs.get(jobs.size() - 1));
-        if (save)
+    private void changed() {
+        unsaved = true;
+        if (!deferSaves)
             saveWorkBook();
     }
 
-    private void saveWorkBook() throws WorkBookFull {
+    private void saveWorkBook() {
+        unsaved = false;
+        lastSaved = System.currentTimeMillis();
         try {
-            Iterator<Item> pages = workBookItem.getItems().stream().sorted(Comparator.comparing(Item::getDescription)).iterator();
-            Item contentsPage;
-            if (!pages.hasNext()) {
+            if (contentsPage == null || !workBookItem.getItems().contains(contentsPage)) {
                 logger.warning("Contents page missing when saving workbook. Adding a new one.");
-                contentsPage = getNewPage("Contents");
-            } else {
-                contentsPage = pages.next();
+                contentsPage = createPage(workBookItem, "Contents");
+                writeHeader();
             }
-            contentsPage.setInscription(Joiner.on("\n").join(skillCap, (forge == null ? "-10" : forge.getWurmId()), (Object[])crafterType.getAllTypes()), "");
-
-            int pageNumber = 1;
-            int length = 0;
-            StringBuilder sb = new StringBuilder();
-            for (Job job : jobs) {
-                String jobString = job.toString();
-                if (jobString.length() + length > MAX_INSCRIPTION_LENGTH) {
-                    if (pageNumber == 9) {
-                        throw new WorkBookFull("Work book is already full.");
-                    }
-
-                    addPage(pageNumber, sb.toString(), pages);
-                    ++pageNumber;
-                    length = 0;
-                    sb = new StringBuilder();
-                }
-                length += jobString.length();
-                sb.append(jobString);
-            }
-            if (sb.length() > 0)
-                addPage(pageNumber, sb.toString(), pages);
-
-            pages.forEachRemaining(page -> Items.destroyItem(page.getWurmId()));
         } catch (NoSuchTemplateException | FailedException e) {
             logger.severe("A server error occurred when creating a new item.  Aborting.");
             e.printStackTrace();
         }
+        jobStore.save();
     }
 
-    private void addPage(int num, String inscription, Iterator<Item> pages) throws NoSuchTemplateException, FailedException {
-        Item page;
-        if (pages.hasNext()) {
-            page = pages.next();
-            page.setDescription("Page " + num);
-        }
-        else
-            page = getNewPage("Page " + num);
-        page.setInscription(inscription, "");
+    void addForge(Item forge) {
+        if (forge.getTemplateId() != ItemList.forge || forges.contains(forge))
+            return;
+        forges.add(forge);
+        writeHeader();
     }
 
-    void setForge(@Nullable Item forge) {
-        if (forge != null && forge.getTemplateId() != ItemList.forge)
-            return;
-        if (this.forge != forge) {
-            this.forge = forge;
-            try {
-                saveWorkBook();
-            } catch (WorkBookFull ignored) {}
-            // Exception should never happen as forge is saved to the contents page.
-        }
+    void removeForge(Item forge) {
+        if (forges.remove(forge))
+            writeHeader();
+    }
+
+    public List<Item> getForges() {
+        return Collections.unmodifiableList(forges);
     }
 
     void setDone(Job job) {
-        job.done = true;
-        try {
-            saveWorkBook();
-        } catch (WorkBookFull ignored) {}
-        // Exception should never happen as done is a single character for true or false.
+        if (job.done)
+            return;
+        setState(job, JobState.DONE);
+    }
+
+    // Returns how long the job was in its previous state, in milliseconds.
+    long setState(Job job, JobState state) {
+        if (job.state == state)
+            return 0;
+        long now = System.currentTimeMillis();
+        long elapsed = now - job.stateSince;
+        count(job, -1);
+        job.setState(state, now);
+        count(job, 1);
+        jobStore.update(job);
+        changed();
+        return elapsed;
     }
 
     public long getMoneyToCollect() {
-        long total = 0;
-        for (Job job : jobs) {
-            if (job.isDone())
-                total += job.getPriceCharged();
-        }
+        return moneyToCollect;
+    }
 
-        return total;
+    // Used when the crafter is dismissed, as journal files are not removed with the work book item.
+    public void deleteJobStore() {
+        jobStore.delete();
     }
 
-    public boolean hasEnoughSpaceFor(List<String> lines) {
-        int currentPageNumber = workBookItem.getItemCount() - 1;
-        int charactersRequired = lines.stream().mapToInt(String::length).sum();
-        if (currentPageNumber < 9 && charactersRequired < 500) {
-            return true;
+    public boolean hasEnoughSpaceFor(JobBatch batch) {
+        return jobStore.hasSpaceFor(batch.jobs);
+    }
+
+    public static class JobBatch {
+        private final List<Job> jobs = new ArrayList<>();
+
+        private JobBatch() {}
+
+        public void addJob(long customerId, Item item, float targetQL, boolean mailWhenDone, long priceCharged) {
+            jobs.add(new Job(customerId, item, Math.min(targetQL, CrafterMod.getSkillCap()), mailWhenDone, priceCharged, false));
         }
-        Optional<Item> maybeItem = workBookItem.getItems().stream().max(Comparator.comparing(Item::getDescription));
-        if (maybeItem.isPresent()) {
-            InscriptionData inscription = maybeItem.get().getInscription();
-            if (inscription != null) {
-                return charactersRequired <= 500 - inscription.getInscription().length();
-            }
+
+        public void addDonation(Item item) {
+            jobs.add(new Donation(item));
+        }
+
+        public boolean isEmpty() {
+            return jobs.isEmpty();
         }
-        return false;
     }
 }
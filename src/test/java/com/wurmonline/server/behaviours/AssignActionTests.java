@@ -71,7 +71,7 @@ class AssignActionTests {
 
     @Test
     void testGetBehavioursForAssigned() {
-        data.setForge(forge);
+        data.addForge(forge);
         List<ActionEntry> entries = action.getBehavioursFor(owner, contract, forge);
         assertEquals(1, entries.size());
         assertEquals("Unassign", entries.get(0).getActionString());
@@ -114,7 +114,7 @@ class AssignActionTests {
 
     @Test
     void testUnassign() {
-        data.setForge(forge);
+        data.addForge(forge);
         assertTrue(action.action(act, owner, contract, forge, action.getActionId(), 0));
         assertFalse(data.getWorkBook().isForgeAssigned());
         assertThat(owner, receivedMessageContaining(unassignMessageFragment));
@@ -122,7 +122,7 @@ class AssignActionTests {
 
     @Test
     void testAssignNotUnassignedOnFailure() {
-        data.setForge(forge);
+        data.addForge(forge);
         assert data.getWorkBook().isForgeAssigned();
         assertFalse(action.action(act, owner, contract, forge, (short)(action.getActionId() + 1), 0));
         assertTrue(data.getWorkBook().isForgeAssigned());
@@ -156,7 +156,7 @@ class AssignActionTests {
 
     @Test
     void testUnassignRemovesItemsFromForgeWithNoConcurrentModificationException() {
-        data.setForge(forge);
+        data.addForge(forge);
         List<Item> tools = new ArrayList<>();
         for (int i = 0; i < 10; i++) {
             Item tool = factory.createNewItem();
@@ -10,7 +10,10 @@ import org.gotti.wurmunlimited.modloader.ReflectionUtil;
 import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 import static junit.framework.TestCase.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -39,6 +42,25 @@ class CrafterTradeHandlerPriceCalculationTests extends CrafterTradingTest {
         );
     }
 
+    @Test
+    void testPriceCurveMatchesCalculation() {
+        List<Float> qls = new ArrayList<>();
+        for (int i = 0; i <= 10000; ++i)
+            qls.add(i / 100f);
+        Random random = new Random(1);
+        for (int i = 0; i < 10000; ++i)
+            qls.add(random.nextFloat() * 100);
+        qls.add(Math.nextUp(70f));
+        qls.add(Math.nextDown(70f));
+        qls.add(100.5f);
+        qls.add(-1f);
+
+        for (float ql : qls) {
+            long expected = ql >= 70 ? CrafterTradeHandler.priceCalculation(ql) : CrafterTradeHandler.priceCalculationSub70(ql);
+            assertEquals(expected, CrafterTradeHandler.priceCurve(ql), "QL " + ql);
+        }
+    }
+
     @Test
     void test1QLTo20QL() {
         create(20);
@@ -238,6 +238,31 @@ class CrafterTradeHandlerTests extends CrafterTradingTest {
         assertEquals(new Change(handler.getTraderBuyPriceForItem(player.getInventory().getFirstContainedItem()) * numberOfItems).getChangeShortString(), getPriceFromMessage(factory.getCommunicator(player).getLastMessage()));
     }
 
+    @Test
+    void testBalanceTellsTradersOfChangeOnce() {
+        crafter = factory.createNewCrafter(owner, crafterType, 50);
+        int numberOfItems = 4;
+
+        makeNewCrafterTrade();
+        makeHandler();
+
+        handler.addItemsToTrade();
+
+        selectOption("Improve to 20ql");
+        handler.balance();
+        Items.destroyItem(player.getInventory().getFirstContainedItem().getWurmId());
+        factory.createManyItems(numberOfItems, ItemList.pickAxe).forEach(player.getInventory()::insertItem);
+        player.getInventory().getItems().forEach(trade.getTradingWindow(2)::addItem);
+
+        setNotBalanced();
+        int counter = trade.getCurrentCounter();
+        handler.balance();
+
+        assertEquals(counter + 1, trade.getCurrentCounter());
+        assertEquals(0, trade.getTradingWindow(2).getItems().length);
+        assertEquals(numberOfItems, trade.getTradingWindow(4).getItems().length);
+    }
+
     @Test
     void testImproveChoosesHighestQL() {
         crafter = factory.createNewCrafter(owner, crafterType, 50);
@@ -257,6 +282,33 @@ class CrafterTradeHandlerTests extends CrafterTradingTest {
         assertEquals("Improve to 30ql", trade.getTradingWindow(3).getItems()[0].getName());
     }
 
+    @Test
+    void testPriceUpdatedWhenOptionChanged() {
+        crafter = factory.createNewCrafter(owner, crafterType, 50);
+
+        makeNewCrafterTrade();
+        makeHandler();
+
+        handler.addItemsToTrade();
+
+        selectOption("Improve to 20ql");
+        Item pickaxe = player.getInventory().getFirstContainedItem();
+        trade.getTradingWindow(2).addItem(pickaxe);
+
+        handler.balance();
+        assertEquals(20, handler.getTargetQL(pickaxe));
+        int price = handler.getTraderBuyPriceForItem(pickaxe);
+
+        deselectOption("Improve to 20ql");
+        selectOption("Improve to 30ql");
+        setNotBalanced();
+        handler.balance();
+
+        assertEquals(30, handler.getTargetQL(pickaxe));
+        assertTrue(handler.getTraderBuyPriceForItem(pickaxe) > price);
+        assertEquals(new Change(handler.getTraderBuyPriceForItem(pickaxe)).getChangeShortString(), getPriceFromMessage(factory.getCommunicator(player).getLastMessage()));
+    }
+
     @Test
     void testImproveChoosesHighestQLPerSkill() throws NoSuchFieldException, IllegalAccessException {
         crafter = factory.createNewCrafter(owner, new CrafterType(SkillList.SMITHING_BLACKSMITHING, SkillList.CARPENTRY), 40);
@@ -670,34 +722,78 @@ class CrafterTradeHandlerTests extends CrafterTradingTest {
     }
 
     @Test
-    void testOptionItemsDestroyedOnTradeEnd() {
+    void testOptionItemsReusedOnNextTrade() {
         makeNewCrafterTrade();
         makeHandler();
         handler.addItemsToTrade();
 
-        List<Item> options = Arrays.asList(trade.getTradingWindow(1).getItems());
+        Set<Item> options = new HashSet<>(Arrays.asList(trade.getTradingWindow(1).getItems()));
         assert !options.isEmpty();
 
         handler.balance();
         handler.end();
 
+        makeNewCrafterTrade();
+        makeHandler();
+        handler.addItemsToTrade();
+
+        assertEquals(options, new HashSet<>(Arrays.asList(trade.getTradingWindow(1).getItems())));
         for (Item item : options) {
-            assertThrows(NoSuchItemException.class, () -> Items.getItem(item.getWurmId()));
+            assertDoesNotThrow(() -> Items.getItem(item.getWurmId()));
         }
     }
 
     @Test
-    void testOptionItemsDestroyedOnTradeEndByCloseWindow() {
+    void testOptionItemsReusedOnNextTradeByCloseWindow() {
         makeNewCrafterTrade();
         makeHandler();
         handler.addItemsToTrade();
 
-        List<Item> options = Arrays.asList(trade.getTradingWindow(1).getItems());
+        Set<Item> options = new HashSet<>(Arrays.asList(trade.getTradingWindow(1).getItems()));
         assert !options.isEmpty();
 
         handler.balance();
         crafter.getCommunicator().sendCloseTradeWindow();
 
+        makeNewCrafterTrade();
+        makeHandler();
+        handler.addItemsToTrade();
+
+        assertEquals(options, new HashSet<>(Arrays.asList(trade.getTradingWindow(1).getItems())));
+    }
+
+    @Test
+    void testOptionItemsMadeAgainWhenPriceModifierChanges() {
+        makeNewCrafterTrade();
+        makeHandler();
+        handler.addItemsToTrade();
+
+        List<Item> options = Arrays.asList(trade.getTradingWindow(1).getItems());
+        handler.end();
+
+        Economy.getEconomy().getShop(crafter).setPriceModifier(2.0f);
+        makeNewCrafterTrade();
+        makeHandler();
+        handler.addItemsToTrade();
+
+        for (Item item : options) {
+            assertThrows(NoSuchItemException.class, () -> Items.getItem(item.getWurmId()));
+        }
+        assertEquals(options.size(), trade.getTradingWindow(1).getItems().length);
+    }
+
+    @Test
+    void testOptionItemsDestroyedWhenCrafterRemoved() {
+        makeNewCrafterTrade();
+        makeHandler();
+        handler.addItemsToTrade();
+
+        List<Item> options = Arrays.asList(trade.getTradingWindow(1).getItems());
+        assert !options.isEmpty();
+        handler.end();
+
+        CrafterAI.removeCrafter(crafter);
+
         for (Item item : options) {
             assertThrows(NoSuchItemException.class, () -> Items.getItem(item.getWurmId()));
         }
@@ -9,8 +9,7 @@ import java.util.Properties;
 
 import static mod.wurmunlimited.Assert.hasCoinsOfValue;
 import static org.hamcrest.MatcherAssert.assertThat;
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -176,4 +175,26 @@ class CrafterTradingWindowTests extends CrafterTradingTest {
         assertEquals(price, Economy.getEconomy().getKingsShop().getMoney());
         verify(Economy.getEconomy(), times(coinCount)).returnCoin(any(Item.class), eq("CrafterTrade"));
     }
+
+    @Test
+    void testItemSnapshotSharedUntilChanged() {
+        makeNewCrafterTrade();
+        CrafterTradingWindow window = trade.getTradingWindow(2);
+        assertEquals(0, window.size());
+        assertEquals(0, window.getItems().length);
+
+        window.addItem(tool);
+        Item[] items = window.getItems();
+        assertEquals(1, window.size());
+        assertSame(items, window.getItems());
+        assertSame(window.getItemList(), window.getItemList());
+        assertSame(window.getAllItems(), window.getAllItems());
+
+        window.removeItem(tool);
+        assertNotSame(items, window.getItems());
+        assertEquals(1, items.length);
+        assertEquals(0, window.size());
+        assertEquals(0, window.getItemList().size());
+        assertEquals(0, window.getAllItems().length);
+    }
 }
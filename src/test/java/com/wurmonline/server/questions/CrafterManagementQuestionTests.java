@@ -91,7 +91,7 @@ class CrafterManagementQuestionTests {
         new CrafterManagementQuestion(owner, crafter).sendQuestion();
         assertTrue(factory.getCommunicator(owner).lastBmlContent.contains("text{color=\"255,0,0\";text=\"Forge - Not Assigned\"}"), factory.getCommunicator(owner).lastBmlContent);
 
-        ((CrafterAIData)crafter.getCreatureAIData()).setForge(factory.createNewItem(ItemList.forge));
+        ((CrafterAIData)crafter.getCreatureAIData()).addForge(factory.createNewItem(ItemList.forge));
         new CrafterManagementQuestion(owner, crafter).sendQuestion();
         assertTrue(factory.getCommunicator(owner).lastBmlContent.contains("text{text=\"Forge - Assigned\"}"), factory.getCommunicator(owner).lastBmlContent);
     }
@@ -189,11 +189,17 @@ class CrafterManagementQuestionTests {
 
     @Test
     void testForgeUnassignedOnDismiss() {
-        CrafterAI.assignedForges.put(crafter, factory.createNewItem(ItemList.forge));
+        Item forge1 = factory.createNewItem(ItemList.forge);
+        Item forge2 = factory.createNewItem(ItemList.forge);
+        CrafterAI.registry.assignForge(forge1, crafter);
+        CrafterAI.registry.assignForge(forge2, crafter);
 
         Properties properties = new Properties();
         properties.setProperty("dismiss", "true");
         new CrafterManagementQuestion(owner, crafter).answer(properties);
-        assertFalse(CrafterAI.assignedForges.containsKey(crafter));
+        assertNull(CrafterAI.registry.getCrafterAssignedTo(forge1.getWurmId()));
+        assertNull(CrafterAI.registry.getCrafterAssignedTo(forge2.getWurmId()));
+        assertFalse(CrafterAI.registry.isForgeAssigned(forge1.getWurmId()));
+        assertFalse(CrafterAI.registry.isRegistered(crafter));
     }
 }
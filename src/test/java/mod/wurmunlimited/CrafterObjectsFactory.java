@@ -17,7 +17,7 @@ public class CrafterObjectsFactory extends WurmObjectsFactory {
         new CrafterTemplate().createCreateTemplateBuilder().build().setCreatureAI(new CrafterAI());
         assert CreatureTemplateFactory.getInstance().getTemplate(CrafterTemplate.getTemplateId()) != null;
         Zones.resetStatic();
-        CrafterAI.assignedForges.clear();
+        CrafterAI.registry.clear();
     }
 
     public Creature createNewCrafter(Creature owner, CrafterType type, float skillCap) {
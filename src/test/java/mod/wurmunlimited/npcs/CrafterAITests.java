@@ -1,5 +1,6 @@
 package mod.wurmunlimited.npcs;
 
+import com.wurmonline.server.TimeConstants;
 import com.wurmonline.server.behaviours.Actions;
 import com.wurmonline.server.behaviours.BehaviourDispatcher;
 import com.wurmonline.server.creatures.Creature;
@@ -14,6 +15,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -79,6 +81,20 @@ class CrafterAITests extends CrafterTest {
         assertFalse(forge.getItems().contains(tool));
     }
 
+    @Test
+    void testJobStateFollowsWork() {
+        assert tool.isMetal();
+        assertEquals(JobState.QUEUED, job.getState());
+
+        data.sendNextAction();
+        assertEquals(JobState.HEATING, job.getState());
+
+        warmUp();
+        tool.setTemperature(CrafterAIData.targetTemperature);
+        data.sendNextAction();
+        assertEquals(JobState.IMPROVING, job.getState());
+    }
+
     @Test
     void testItemRepairedIfDamaged() {
         tool.setDamage(50);
@@ -125,6 +141,120 @@ class CrafterAITests extends CrafterTest {
         }
     }
 
+    @Test
+    void testWaitingJobNotCheckedUntilHot() {
+        assert tool.isMetal();
+
+        data.sendNextAction();
+        assertTrue(forge.getItems().contains(tool));
+        crafter.getInventory().insertItem(tool);
+
+        data.sendNextAction();
+        assertFalse(forge.getItems().contains(tool));
+
+        tool.setTemperature(CrafterAIData.targetTemperature);
+        data.sendNextAction();
+        assertTrue(forge.getItems().contains(tool));
+    }
+
+    @Test
+    void testQueuedMetalItemsPreHeated() throws WorkBook.WorkBookFull {
+        Item other = factory.createNewItem(ItemList.pickAxe);
+        workBook.addJob(player.getWurmId(), other, 10, false, 1);
+
+        data.sendNextAction();
+        assertTrue(forge.getItems().contains(tool));
+        assertTrue(forge.getItems().contains(other));
+        assertTrue(forge.getItems().contains(lump));
+    }
+
+    @Test
+    void testHeatingSpreadOverForges() throws WorkBook.WorkBookFull, NoSuchFieldException, IllegalAccessException {
+        Item forge2 = factory.createNewItem(ItemList.forge);
+        List<Item> forges = ReflectionUtil.getPrivateField(data, CrafterAIData.class.getDeclaredField("forges"));
+        forges.add(forge2);
+        workBook.addForge(forge2);
+        Item other = factory.createNewItem(ItemList.pickAxe);
+        workBook.addJob(player.getWurmId(), other, 10, false, 1);
+
+        data.sendNextAction();
+        assertTrue(forge.getItemCount() > 0);
+        assertTrue(forge2.getItemCount() > 0);
+        assertNotEquals(forge.getItems().contains(tool), forge.getItems().contains(other));
+    }
+
+    @Test
+    void testParkedWithoutJobsUntilJobAdded() throws WorkBook.WorkBookFull {
+        workBook.removeJob(tool);
+
+        data.sendNextAction();
+        assertTrue(data.isParked(System.currentTimeMillis()));
+        workBook.addJob(player.getWurmId(), factory.createNewItem(ItemList.pickAxe), 10, false, 1);
+        assertFalse(data.isParked(System.currentTimeMillis()));
+    }
+
+    @Test
+    void testDeferredChangesSavedWhenParked() throws NoSuchFieldException, IllegalAccessException, WorkBook.InvalidWorkBookInscription {
+        crafter.getInventory().insertItem(tool);
+        tool.setQualityLevel(11);
+        ReflectionUtil.setPrivateField(job, Job.class.getDeclaredField("targetQL"), 10);
+        ReflectionUtil.setPrivateField(null, CrafterMod.class.getDeclaredField("workBookSaveInterval"), (int)TimeConstants.HOUR_MILLIS);
+        try {
+            workBook.startDeferredSaves();
+            data.sendNextAction();
+            assertTrue(data.isParked(System.currentTimeMillis()));
+
+            WorkBook loaded = new WorkBook(workBook.workBookItem);
+            assertEquals(0, loaded.todo());
+            assertEquals(1, loaded.done());
+        } finally {
+            ReflectionUtil.setPrivateField(null, CrafterMod.class.getDeclaredField("workBookSaveInterval"), 0);
+        }
+    }
+
+    @Test
+    void testParkedUntilItemHot() {
+        assert tool.isMetal();
+
+        data.sendNextAction();
+        assertTrue(data.isParked(System.currentTimeMillis()));
+        tool.setTemperature(CrafterAIData.targetTemperature);
+        assertFalse(data.isParked(System.currentTimeMillis()));
+    }
+
+    @Test
+    void testParkedWhilstHeatingWakesToCheckForge() {
+        assert tool.isMetal();
+
+        data.sendNextAction();
+        assertTrue(data.isParked(System.currentTimeMillis()));
+        assertFalse(data.isParked(System.currentTimeMillis() + TimeConstants.MINUTE_MILLIS));
+    }
+
+    @Test
+    void testNotParkedWhilstWorking() {
+        warmUp();
+
+        data.sendNextAction();
+        assertFalse(BehaviourDispatcher.nothingDispatched());
+        assertFalse(data.isParked(System.currentTimeMillis()));
+    }
+
+    @Test
+    void testQueueCountsOtherCustomersJobs() throws WorkBook.WorkBookFull {
+        Item other = factory.createNewItem(ItemList.pickAxe);
+        workBook.addJob(owner.getWurmId(), other, 10, false, 1);
+
+        assertEquals("Your items - " + other.getName() + " (position 2, waiting in the queue).", data.getQueueFor(owner));
+        assertNull(data.getQueueFor(factory.createNewPlayer()));
+    }
+
+    @Test
+    void testNoEtaWithoutFinishedJobs() {
+        assertEquals("I have not finished enough recently to say when your items will be ready.", data.getEtaFor(player));
+        assertNull(data.getEtaFor(owner));
+    }
+
     @Test
     void testLumpTakenFromForgeWhenItAndToolAreGlowing() {
         assert tool.isMetal();
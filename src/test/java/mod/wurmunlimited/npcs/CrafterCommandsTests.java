@@ -0,0 +1,56 @@
+package mod.wurmunlimited.npcs;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CrafterCommandsTests {
+    private ByteBuffer message(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 10);
+        buffer.put((byte)bytes.length);
+        buffer.put(bytes);
+        buffer.put("trailing".getBytes(StandardCharsets.UTF_8));
+        buffer.flip();
+        return buffer;
+    }
+
+    @Test
+    void testMatchesCommand() {
+        assertEquals("", CrafterCommands.match(message("/crafters")));
+    }
+
+    @Test
+    void testMatchesSubcommand() {
+        assertEquals("queue", CrafterCommands.match(message("/crafters queue")));
+        assertEquals("eta", CrafterCommands.match(message("/crafters  eta ")));
+    }
+
+    @Test
+    void testDoesNotMatchOtherMessages() {
+        assertNull(CrafterCommands.match(message("Hello")));
+        assertNull(CrafterCommands.match(message("/craft")));
+        assertNull(CrafterCommands.match(message("/craftersqueue")));
+        assertNull(CrafterCommands.match(message("/Crafters")));
+        assertNull(CrafterCommands.match(message("")));
+    }
+
+    @Test
+    void testMessageLongerThanBufferDoesNotMatch() {
+        ByteBuffer buffer = ByteBuffer.allocate(10);
+        buffer.put((byte)100);
+        buffer.put("/crafters".getBytes(StandardCharsets.UTF_8));
+        buffer.flip();
+        assertNull(CrafterCommands.match(buffer));
+    }
+
+    @Test
+    void testPositionNotChanged() {
+        ByteBuffer buffer = message("/crafters status");
+        CrafterCommands.match(buffer);
+        assertEquals(0, buffer.position());
+    }
+}
@@ -0,0 +1,49 @@
+package mod.wurmunlimited.npcs;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.MessageFormat;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CrafterLogFilterTests {
+    private static LogRecord record(String template, Object... args) {
+        LogRecord record = new LogRecord(Level.INFO, template);
+        record.setParameters(args);
+        return record;
+    }
+
+    @Test
+    void testRepeatDropped() {
+        CrafterLogFilter filter = new CrafterLogFilter();
+
+        assertTrue(filter.isLoggable(record("Repairing {0}", "pickaxe")));
+        assertFalse(filter.isLoggable(record("Repairing {0}", "pickaxe")));
+    }
+
+    @Test
+    void testSameTemplateWithDifferentArgumentsLogged() {
+        CrafterLogFilter filter = new CrafterLogFilter();
+
+        assertTrue(filter.isLoggable(record("Repairing {0}", "pickaxe")));
+        assertTrue(filter.isLoggable(record("Repairing {0}", "hatchet")));
+    }
+
+    @Test
+    void testSummaryOfRepeats() {
+        CrafterLogFilter filter = new CrafterLogFilter();
+
+        assertTrue(filter.isLoggable(record("Repairing {0}", "pickaxe")));
+        assertNull(filter.takeSummary());
+        for (int i = 0; i < 3; ++i)
+            assertFalse(filter.isLoggable(record("Repairing {0}", "pickaxe")));
+        assertTrue(filter.isLoggable(record("Improving {0} with {1}", "pickaxe", "whetstone")));
+
+        LogRecord summary = filter.takeSummary();
+        assertNotNull(summary);
+        assertEquals("Last message repeated 3 times.", MessageFormat.format(summary.getMessage(), summary.getParameters()));
+        assertNull(filter.takeSummary());
+    }
+}
@@ -0,0 +1,56 @@
+package mod.wurmunlimited.npcs;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CrafterLogTests {
+    private final List<LogRecord> records = new ArrayList<>();
+
+    private Logger createLogger(String name, Level level) {
+        Logger log = Logger.getLogger(name);
+        log.setUseParentHandlers(false);
+        log.setLevel(level);
+        log.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                records.add(record);
+            }
+
+            @Override
+            public void flush() {}
+
+            @Override
+            public void close() {}
+        });
+        return log;
+    }
+
+    @Test
+    void testNothingLoggedWhenOff() {
+        Logger log = createLogger("crafter_log_off", Level.OFF);
+        CrafterLog.info(log, "Repairing {0}", "pickaxe");
+
+        assertTrue(records.isEmpty());
+    }
+
+    @Test
+    void testRecordKeepsTemplateAndArguments() {
+        Logger log = createLogger("crafter_log_on", Level.ALL);
+        CrafterLog.info(log, "Improving {0} with {1}", "pickaxe", "whetstone");
+
+        assertEquals(1, records.size());
+        LogRecord record = records.get(0);
+        assertEquals("Improving {0} with {1}", record.getMessage());
+        assertArrayEquals(new Object[] { "pickaxe", "whetstone" }, record.getParameters());
+        assertNull(record.getSourceClassName());
+        assertNull(record.getSourceMethodName());
+    }
+}
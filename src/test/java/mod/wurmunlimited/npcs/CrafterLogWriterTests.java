@@ -0,0 +1,146 @@
+package mod.wurmunlimited.npcs;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CrafterLogWriterTests {
+    private CrafterLogWriter writer;
+
+    private static class RecordingHandler extends Handler {
+        private final List<String> messages = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        private volatile int flushes = 0;
+        private volatile boolean closed = false;
+        private CountDownLatch blockUntil = null;
+
+        @Override
+        public void publish(LogRecord record) {
+            if (blockUntil != null) {
+                try {
+                    blockUntil.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {}
+            }
+            messages.add(record.getMessage());
+            threads.add(Thread.currentThread().getName());
+        }
+
+        @Override
+        public void flush() {
+            ++flushes;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null)
+            writer.shutdown();
+    }
+
+    @Test
+    void testRecordsWrittenInOrderOnWriterThread() {
+        writer = new CrafterLogWriter(100, CrafterMod.LogQueueOption.block);
+        RecordingHandler target = new RecordingHandler();
+        Handler handler = new CrafterLogWriter.AsyncHandler(writer, target);
+
+        for (int i = 0; i < 50; ++i)
+            handler.publish(new LogRecord(Level.INFO, "Message " + i));
+        handler.flush();
+
+        assertEquals(50, target.messages.size());
+        for (int i = 0; i < 50; ++i)
+            assertEquals("Message " + i, target.messages.get(i));
+        assertTrue(target.threads.stream().allMatch("Crafter log writer"::equals));
+        assertTrue(target.flushes > 0);
+    }
+
+    @Test
+    void testFilterAppliedBeforeQueueing() {
+        writer = new CrafterLogWriter(100, CrafterMod.LogQueueOption.block);
+        RecordingHandler target = new RecordingHandler();
+        Handler handler = new CrafterLogWriter.AsyncHandler(writer, target);
+        handler.setFilter(new CrafterLogFilter());
+
+        handler.publish(new LogRecord(Level.INFO, "Same"));
+        handler.publish(new LogRecord(Level.INFO, "Same"));
+        handler.flush();
+
+        assertEquals(1, target.messages.size());
+    }
+
+    @Test
+    void testDropWhenFull() {
+        writer = new CrafterLogWriter(2, CrafterMod.LogQueueOption.drop);
+        RecordingHandler target = new RecordingHandler();
+        CountDownLatch release = new CountDownLatch(1);
+        target.blockUntil = release;
+        Handler handler = new CrafterLogWriter.AsyncHandler(writer, target);
+
+        for (int i = 0; i < 20; ++i)
+            handler.publish(new LogRecord(Level.INFO, "Message " + i));
+        release.countDown();
+        handler.flush();
+
+        assertTrue(writer.getDroppedCount() > 0);
+        assertEquals(20, target.messages.size() + writer.getDroppedCount());
+    }
+
+    @Test
+    void testCloseAfterQueuedRecords() {
+        writer = new CrafterLogWriter(100, CrafterMod.LogQueueOption.block);
+        RecordingHandler target = new RecordingHandler();
+        Handler handler = new CrafterLogWriter.AsyncHandler(writer, target);
+
+        handler.publish(new LogRecord(Level.INFO, "Message"));
+        handler.close();
+        writer.flush();
+
+        assertEquals(1, target.messages.size());
+        assertTrue(target.closed);
+    }
+
+    @Test
+    void testCloseDoesNotWaitWhenFull() {
+        writer = new CrafterLogWriter(2, CrafterMod.LogQueueOption.drop);
+        RecordingHandler target = new RecordingHandler();
+        CountDownLatch release = new CountDownLatch(1);
+        target.blockUntil = release;
+        Handler handler = new CrafterLogWriter.AsyncHandler(writer, target);
+
+        for (int i = 0; i < 20; ++i)
+            handler.publish(new LogRecord(Level.INFO, "Message " + i));
+        handler.close();
+        assertTrue(target.closed);
+        release.countDown();
+    }
+
+    @Test
+    void testShutdownWritesRemainingRecords() {
+        writer = new CrafterLogWriter(100, CrafterMod.LogQueueOption.block);
+        RecordingHandler target = new RecordingHandler();
+        Handler handler = new CrafterLogWriter.AsyncHandler(writer, target);
+
+        for (int i = 0; i < 10; ++i)
+            handler.publish(new LogRecord(Level.INFO, "Message " + i));
+        writer.shutdown();
+        assertEquals(10, target.messages.size());
+
+        handler.publish(new LogRecord(Level.INFO, "After"));
+        assertEquals(11, target.messages.size());
+    }
+}
@@ -32,7 +32,7 @@ class CrafterModTests {
     @BeforeEach
     void setUp() throws Exception {
         factory = new CrafterObjectsFactory();
-        CrafterAI.assignedForges.clear();
+        CrafterAI.registry.clear();
         crafterType = new CrafterType(SkillList.SMITHING_BLACKSMITHING);
     }
 
@@ -42,7 +42,7 @@ class CrafterModTests {
         Creature player = factory.createNewPlayer();
         Creature crafter = factory.createNewCrafter(factory.createNewPlayer(), crafterType, 20);
         Item forge = factory.createNewItem(ItemList.forge);
-        ((CrafterAIData)crafter.getCreatureAIData()).setForge(forge);
+        ((CrafterAIData)crafter.getCreatureAIData()).addForge(forge);
 
         InvocationHandler handler = crafterMod::behaviourDispatcher;
         Method method = mock(Method.class);
@@ -58,9 +58,9 @@ class CrafterModTests {
         Creature player = factory.createNewPlayer();
         Creature crafter = factory.createNewCrafter(factory.createNewPlayer(), crafterType, 20);
         Item forge = factory.createNewItem(ItemList.forge);
-        ((CrafterAIData)crafter.getCreatureAIData()).setForge(forge);
+        ((CrafterAIData)crafter.getCreatureAIData()).addForge(forge);
 
-        CrafterAI.assignedForges.clear();
+        CrafterAI.registry.clear();
         ReflectionUtil.setPrivateField(crafter, Creature.class.getDeclaredField("aiData"), null);
         crafter.getCreatureAIData();
 
@@ -77,7 +77,7 @@ class CrafterModTests {
         CrafterMod crafterMod = new CrafterMod();
         Creature player = factory.createNewPlayer();
         Item forge = factory.createNewItem(ItemList.forge);
-        assert !CrafterAI.assignedForges.containsValue(forge);
+        assert !CrafterAI.registry.isForgeAssigned(forge.getWurmId());
 
         InvocationHandler handler = crafterMod::behaviourDispatcher;
         Method method = mock(Method.class);
@@ -93,7 +93,7 @@ class CrafterModTests {
         Player player = factory.createNewPlayer();
         Creature crafter = factory.createNewCrafter(factory.createNewPlayer(), crafterType, 20);
         Item forge = factory.createNewItem(ItemList.forge);
-        ((CrafterAIData)crafter.getCreatureAIData()).setForge(forge);
+        ((CrafterAIData)crafter.getCreatureAIData()).addForge(forge);
         player.setPower((byte)2);
 
         InvocationHandler handler = crafterMod::behaviourDispatcher;
@@ -111,7 +111,7 @@ class CrafterModTests {
         Creature player = factory.createNewPlayer();
         Creature crafter = factory.createNewCrafter(factory.createNewPlayer(), crafterType, 20);
         Item forge = factory.createNewItem(ItemList.forge);
-        ((CrafterAIData)crafter.getCreatureAIData()).setForge(forge);
+        ((CrafterAIData)crafter.getCreatureAIData()).addForge(forge);
 
         InvocationHandler handler = crafterMod::behaviourDispatcher;
         Method method = mock(Method.class);
@@ -0,0 +1,145 @@
+package mod.wurmunlimited.npcs;
+
+import com.wurmonline.server.creatures.Creature;
+import com.wurmonline.server.items.Item;
+import com.wurmonline.server.items.ItemList;
+import com.wurmonline.server.players.Player;
+import com.wurmonline.server.skills.SkillList;
+import mod.wurmunlimited.CrafterObjectsFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CrafterRegistryTests {
+    private CrafterObjectsFactory factory;
+    private Player owner;
+    private CrafterType crafterType;
+
+    private static class ClosingHandler extends Handler {
+        private boolean closed = false;
+
+        @Override
+        public void publish(LogRecord record) {}
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        factory = new CrafterObjectsFactory();
+        owner = factory.createNewPlayer();
+        crafterType = new CrafterType(SkillList.SMITHING_BLACKSMITHING);
+    }
+
+    @Test
+    void testCrafterRegisteredOnCreation() {
+        Creature crafter = factory.createNewCrafter(owner, crafterType, 20);
+
+        assertTrue(CrafterAI.registry.isRegistered(crafter));
+        assertTrue(CrafterAI.registry.getCrafters().contains(crafter));
+        assertEquals(1, CrafterAI.registry.getCrafterCount());
+    }
+
+    @Test
+    void testUnregisterRemovesForges() {
+        Creature crafter = factory.createNewCrafter(owner, crafterType, 20);
+        Creature other = factory.createNewCrafter(owner, crafterType, 20);
+        Item forge1 = factory.createNewItem(ItemList.forge);
+        Item forge2 = factory.createNewItem(ItemList.forge);
+        Item otherForge = factory.createNewItem(ItemList.forge);
+        CrafterAI.registry.assignForge(forge1, crafter);
+        CrafterAI.registry.assignForge(forge2, crafter);
+        CrafterAI.registry.assignForge(otherForge, other);
+
+        CrafterAI.registry.unregister(crafter);
+
+        assertFalse(CrafterAI.registry.isRegistered(crafter));
+        assertFalse(CrafterAI.registry.isForgeAssigned(forge1.getWurmId()));
+        assertFalse(CrafterAI.registry.isForgeAssigned(forge2.getWurmId()));
+        assertTrue(CrafterAI.registry.isForgeAssigned(otherForge.getWurmId()));
+        assertEquals(other, CrafterAI.registry.getCrafterAssignedTo(otherForge.getWurmId()));
+        assertEquals(1, CrafterAI.registry.getAssignedForgeCount());
+    }
+
+    @Test
+    void testUnassignForge() {
+        Creature crafter = factory.createNewCrafter(owner, crafterType, 20);
+        Item forge = factory.createNewItem(ItemList.forge);
+        CrafterAI.registry.assignForge(forge, crafter);
+        CrafterAI.registry.unassignForge(forge);
+
+        assertFalse(CrafterAI.registry.isForgeAssigned(forge.getWurmId()));
+        assertNull(CrafterAI.registry.getCrafterAssignedTo(forge.getWurmId()));
+    }
+
+    @Test
+    void testUnregisterClosesLogger() {
+        Creature crafter = factory.createNewCrafter(owner, crafterType, 20);
+        ClosingHandler handler = new ClosingHandler();
+        CrafterAI.registry.unregister(crafter);
+        CrafterAI.registry.register(crafter);
+        Logger log = CrafterAI.registry.getLogger(crafter, c -> {
+            Logger l = Logger.getLogger("registry_test_" + c.getWurmId());
+            l.addHandler(handler);
+            return l;
+        });
+
+        assertSame(log, CrafterAI.registry.getLogger(crafter, c -> fail("Logger should be reused.")));
+        CrafterAI.registry.unregister(crafter);
+
+        assertTrue(handler.closed);
+        assertEquals(0, log.getHandlers().length);
+        assertEquals(0, CrafterAI.registry.getOpenLoggerCount());
+    }
+
+    @Test
+    void testNoLoggerCreatedAfterUnregister() {
+        Creature crafter = factory.createNewCrafter(owner, crafterType, 20);
+        CrafterAI.registry.unregister(crafter);
+
+        Logger log = CrafterAI.registry.getLogger(crafter, c -> fail("Logger should not be created."));
+        assertFalse(log.isLoggable(Level.SEVERE));
+        assertEquals(0, CrafterAI.registry.getOpenLoggerCount());
+    }
+
+    @Test
+    void testRemoveCrafterLeavesNothingBehind() {
+        for (int i = 0; i < 20; ++i) {
+            Creature crafter = factory.createNewCrafter(owner, crafterType, 20);
+            ((CrafterAIData)crafter.getCreatureAIData()).addForge(factory.createNewItem(ItemList.forge));
+            CrafterAI.removeCrafter(crafter);
+        }
+
+        assertEquals(0, CrafterAI.registry.getCrafterCount());
+        assertEquals(0, CrafterAI.registry.getAssignedForgeCount());
+        assertEquals(0, CrafterAI.registry.getOpenLoggerCount());
+    }
+
+    @Test
+    void testDestroyedCrafterRemoved() throws Throwable {
+        Creature crafter = factory.createNewCrafter(owner, crafterType, 20);
+        Item forge = factory.createNewItem(ItemList.forge);
+        ((CrafterAIData)crafter.getCreatureAIData()).addForge(forge);
+
+        Method method = mock(Method.class);
+        new CrafterMod().destroyCreature(crafter, method, new Object[0]);
+
+        verify(method, times(1)).invoke(crafter);
+        assertFalse(CrafterAI.registry.isRegistered(crafter));
+        assertFalse(CrafterAI.registry.isForgeAssigned(forge.getWurmId()));
+    }
+}
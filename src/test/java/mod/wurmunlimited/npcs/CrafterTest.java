@@ -12,6 +12,8 @@ import mod.wurmunlimited.CrafterObjectsFactory;
 import org.gotti.wurmunlimited.modloader.ReflectionUtil;
 import org.junit.jupiter.api.BeforeEach;
 
+import java.util.List;
+
 public class CrafterTest {
     protected CrafterObjectsFactory factory;
     protected Player player;
@@ -40,8 +42,10 @@ public class CrafterTest {
     protected void setForgeWithoutPathing() {
         try {
             CrafterAIData data = (CrafterAIData)crafter.getCreatureAIData();
-            ReflectionUtil.setPrivateField(data, CrafterAIData.class.getDeclaredField("forge"), forge);
-            data.getWorkBook().setForge(forge);
+            List<Item> forges = ReflectionUtil.getPrivateField(data, CrafterAIData.class.getDeclaredField("forges"));
+            forges.add(forge);
+            data.getWorkBook().addForge(forge);
+            CrafterAI.registry.assignForge(forge, crafter);
         } catch (NoSuchFieldException | IllegalAccessException e) {
             throw new RuntimeException(e);
         }
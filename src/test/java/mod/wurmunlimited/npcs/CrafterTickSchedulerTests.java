@@ -0,0 +1,99 @@
+package mod.wurmunlimited.npcs;
+
+import com.wurmonline.server.creatures.Creature;
+import com.wurmonline.server.players.Player;
+import com.wurmonline.server.skills.SkillList;
+import mod.wurmunlimited.CrafterObjectsFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CrafterTickSchedulerTests {
+    private final List<Creature> ran = new ArrayList<>();
+    private Creature crafter1;
+    private Creature crafter2;
+    private Creature crafter3;
+    private long budget;
+    private CrafterTickScheduler scheduler;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        CrafterObjectsFactory factory = new CrafterObjectsFactory();
+        Player owner = factory.createNewPlayer();
+        CrafterType crafterType = new CrafterType(SkillList.SMITHING_BLACKSMITHING);
+        crafter1 = factory.createNewCrafter(owner, crafterType, 20);
+        crafter2 = factory.createNewCrafter(owner, crafterType, 20);
+        crafter3 = factory.createNewCrafter(owner, crafterType, 20);
+        ran.clear();
+        budget = Long.MAX_VALUE;
+        scheduler = new CrafterTickScheduler(ran::add, () -> budget);
+    }
+
+    @Test
+    void testQueuedCraftersRunInOrder() {
+        scheduler.request(crafter1);
+        scheduler.request(crafter2);
+        scheduler.request(crafter3);
+
+        scheduler.run();
+        assertEquals(Arrays.asList(crafter1, crafter2, crafter3), ran);
+        assertEquals(0, scheduler.size());
+    }
+
+    @Test
+    void testCrafterOnlyQueuedOnce() {
+        scheduler.request(crafter1);
+        scheduler.request(crafter2);
+        scheduler.request(crafter1);
+
+        scheduler.run();
+        assertEquals(Arrays.asList(crafter1, crafter2), ran);
+    }
+
+    @Test
+    void testOverBudgetCraftersRunNextTick() {
+        budget = 0;
+        scheduler.request(crafter1);
+        scheduler.request(crafter2);
+        scheduler.request(crafter3);
+
+        scheduler.run();
+        assertEquals(Collections.singletonList(crafter1), ran);
+        scheduler.request(crafter1);
+        scheduler.run();
+        assertEquals(Arrays.asList(crafter1, crafter2), ran);
+        scheduler.run();
+        scheduler.run();
+        assertEquals(Arrays.asList(crafter1, crafter2, crafter3, crafter1), ran);
+    }
+
+    @Test
+    void testRemovedCrafterNotRun() {
+        scheduler.request(crafter1);
+        scheduler.request(crafter2);
+        scheduler.remove(crafter1);
+
+        scheduler.run();
+        assertEquals(Collections.singletonList(crafter2), ran);
+    }
+
+    @Test
+    void testErrorDoesNotStopOtherCrafters() {
+        scheduler = new CrafterTickScheduler(crafter -> {
+            ran.add(crafter);
+            if (crafter == crafter1)
+                throw new RuntimeException();
+        }, () -> budget);
+        scheduler.request(crafter1);
+        scheduler.request(crafter2);
+
+        scheduler.run();
+        assertEquals(Arrays.asList(crafter1, crafter2), ran);
+    }
+}
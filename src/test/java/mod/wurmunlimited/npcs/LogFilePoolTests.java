@@ -0,0 +1,140 @@
+package mod.wurmunlimited.npcs;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogFilePoolTests {
+    private Path directory;
+    private LogFilePool pool;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("crafter_logs");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null)
+            pool.shutdown();
+    }
+
+    private Handler handler(String name) {
+        return pool.getHandler(directory.resolve(name).toString(), true);
+    }
+
+    private static void log(Handler handler, String message) {
+        handler.publish(new LogRecord(Level.INFO, message));
+    }
+
+    private List<Path> files() throws IOException {
+        return Files.list(directory).sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    void testOpenFilesLimited() throws IOException {
+        pool = new LogFilePool(2, 0, 0, 0);
+        Handler handler1 = handler("one.log");
+        Handler handler2 = handler("two.log");
+        Handler handler3 = handler("three.log");
+
+        log(handler1, "First");
+        log(handler2, "Second");
+        log(handler3, "Third");
+        assertEquals(2, pool.getOpenCount());
+
+        // Reopened and appended to.
+        log(handler1, "Again");
+        assertEquals(2, pool.getOpenCount());
+        String contents = new String(Files.readAllBytes(directory.resolve("one.log")), Charset.defaultCharset());
+        assertTrue(contents.contains("First"));
+        assertTrue(contents.contains("Again"));
+    }
+
+    @Test
+    void testClosedHandlerReleasesFile() {
+        pool = new LogFilePool(10, 0, 0, 0);
+        Handler handler = handler("one.log");
+        log(handler, "First");
+        assertEquals(1, pool.getOpenCount());
+
+        handler.close();
+        assertEquals(0, pool.getOpenCount());
+        assertEquals(0, pool.getStartedCount());
+    }
+
+    @Test
+    void testIdleFilesClosed() {
+        pool = new LogFilePool(10, 0, 0, 1000);
+        log(handler("one.log"), "First");
+
+        pool.closeIdle(System.currentTimeMillis());
+        assertEquals(1, pool.getOpenCount());
+        pool.closeIdle(System.currentTimeMillis() + 2000);
+        assertEquals(0, pool.getOpenCount());
+    }
+
+    @Test
+    void testRolledAndCompressedWhenTooBig() throws IOException {
+        pool = new LogFilePool(10, 500, 0, 0);
+        Handler handler = handler("one.log");
+        for (int i = 0; i < 20; ++i)
+            log(handler, "Message number " + i);
+        pool.shutdown();
+
+        List<Path> files = files();
+        List<Path> compressed = files.stream().filter(p -> p.toString().endsWith(".log.gz")).collect(Collectors.toList());
+        assertFalse(compressed.isEmpty());
+        assertTrue(files.contains(directory.resolve("one.log")));
+        assertTrue(Files.size(directory.resolve("one.log")) <= 500);
+        assertEquals(compressed.size() + 1, files.size());
+
+        StringBuilder all = new StringBuilder();
+        for (Path path : compressed) {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(path))) {
+                byte[] buffer = new byte[4096];
+                int read;
+                while ((read = in.read(buffer)) != -1)
+                    all.append(new String(buffer, 0, read, Charset.defaultCharset()));
+            }
+        }
+        all.append(new String(Files.readAllBytes(directory.resolve("one.log")), Charset.defaultCharset()));
+        for (int i = 0; i < 20; ++i)
+            assertTrue(all.toString().contains("Message number " + i + System.lineSeparator()));
+    }
+
+    @Test
+    void testRolledWhenTooOldThoughWrittenRegularly() throws IOException, InterruptedException {
+        pool = new LogFilePool(10, 0, 400, 1);
+        Handler handler = handler("one.log");
+        log(handler, "First");
+        pool.closeIdle(System.currentTimeMillis() + 1000);
+        Thread.sleep(250);
+        log(handler, "Second");
+        pool.closeIdle(System.currentTimeMillis() + 1000);
+        assertEquals(1, files().size());
+
+        Thread.sleep(250);
+        log(handler, "Third");
+        pool.shutdown();
+
+        assertEquals(2, files().size());
+        String contents = new String(Files.readAllBytes(directory.resolve("one.log")), Charset.defaultCharset());
+        assertFalse(contents.contains("Second"));
+        assertTrue(contents.contains("Third"));
+    }
+}
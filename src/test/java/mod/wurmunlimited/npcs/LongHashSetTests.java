@@ -0,0 +1,77 @@
+package mod.wurmunlimited.npcs;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongHashSetTests {
+    @Test
+    void testAddAndContains() {
+        LongHashSet set = new LongHashSet();
+        assertTrue(set.add(12345L));
+        assertFalse(set.add(12345L));
+
+        assertTrue(set.contains(12345L));
+        assertFalse(set.contains(54321L));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    void testZero() {
+        LongHashSet set = new LongHashSet();
+        assertFalse(set.contains(0));
+        assertTrue(set.add(0));
+        assertTrue(set.contains(0));
+        assertTrue(set.remove(0));
+        assertFalse(set.contains(0));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    void testGrowsPastExpectedSize() {
+        LongHashSet set = new LongHashSet(2);
+        for (long i = 1; i <= 1000; ++i)
+            set.add(i * 1000003);
+
+        assertEquals(1000, set.size());
+        for (long i = 1; i <= 1000; ++i)
+            assertTrue(set.contains(i * 1000003));
+        assertFalse(set.contains(1001 * 1000003L));
+    }
+
+    @Test
+    void testRemoveKeepsOtherKeys() {
+        Random random = new Random(1);
+        LongHashSet set = new LongHashSet(4);
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 10000; ++i) {
+            // Small range so there are plenty of removals and re-adds.
+            long key = random.nextInt(500) + 1;
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(key), set.add(key));
+            } else {
+                assertEquals(expected.remove(key), set.remove(key));
+            }
+        }
+
+        assertEquals(expected.size(), set.size());
+        for (long key = 0; key <= 501; ++key)
+            assertEquals(expected.contains(key), set.contains(key));
+    }
+
+    @Test
+    void testClear() {
+        LongHashSet set = new LongHashSet();
+        set.add(1);
+        set.add(0);
+        set.clear();
+
+        assertEquals(0, set.size());
+        assertFalse(set.contains(1));
+        assertFalse(set.contains(0));
+    }
+}
@@ -4,17 +4,23 @@ import com.google.common.base.Joiner;
 import com.wurmonline.server.FailedException;
 import com.wurmonline.server.Items;
 import com.wurmonline.server.NoSuchItemException;
+import com.wurmonline.server.TimeConstants;
 import com.wurmonline.server.creatures.Creature;
 import com.wurmonline.server.items.Item;
 import com.wurmonline.server.items.ItemList;
 import com.wurmonline.server.items.NoSuchTemplateException;
 import com.wurmonline.server.skills.SkillList;
 import mod.wurmunlimited.CrafterObjectsFactory;
+import org.gotti.wurmunlimited.modloader.ReflectionUtil;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.stream.Stream;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -26,6 +32,22 @@ class WorkBookTests {
     void setUp() throws Exception {
         factory = new CrafterObjectsFactory();
         crafterType = new CrafterType(CrafterType.allMetal);
+        setJobStore(CrafterMod.JobStoreOption.inscription);
+        JournalJobStore.directory = Files.createTempDirectory("crafter_journal");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        setJobStore(CrafterMod.JobStoreOption.inscription);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(JournalJobStore.directory)) {
+            for (Path file : files)
+                Files.delete(file);
+        }
+        Files.delete(JournalJobStore.directory);
+    }
+
+    private void setJobStore(CrafterMod.JobStoreOption option) throws NoSuchFieldException, IllegalAccessException {
+        ReflectionUtil.setPrivateField(null, CrafterMod.class.getDeclaredField("jobStore"), option);
     }
 
     private Item createBlankWorkbookItem() {
@@ -153,15 +175,38 @@ class WorkBookTests {
     @Test
     void testWorkBookLoadingForge() {
         WorkBook noForgeWorkBook = createNewWorkbook(crafterType, 20, -10);
-        assertNull(noForgeWorkBook.forge);
+        assertTrue(noForgeWorkBook.forges.isEmpty());
 
         for (int i = 0; i < 10; ++i) {
             Item forge = factory.createNewItem(ItemList.forge);
             WorkBook workBook = createNewWorkbook(crafterType, 20, forge.getWurmId());
-            assertEquals(forge, workBook.forge);
+            assertEquals(1, workBook.forges.size());
+            assertEquals(forge, workBook.forges.get(0));
         }
     }
 
+    @Test
+    void testWorkBookLoadingSeveralForges() {
+        Item forge1 = factory.createNewItem(ItemList.forge);
+        Item forge2 = factory.createNewItem(ItemList.forge);
+        Item workBookItem = createBlankWorkbookItem();
+        workBookItem.getFirstContainedItem().setInscription(Joiner.on("\n").join(
+                "20", forge1.getWurmId() + "," + forge2.getWurmId(), (Object[])crafterType.getAllTypes()), "");
+        WorkBook workBook = getWorkBookFromItem(workBookItem);
+        assertEquals(Arrays.asList(forge1, forge2), workBook.forges);
+    }
+
+    @Test
+    void testWorkBookLoadingSomeInvalidForges() {
+        Item forge = factory.createNewItem(ItemList.forge);
+        Item workBookItem = createBlankWorkbookItem();
+        workBookItem.getFirstContainedItem().setInscription(Joiner.on("\n").join(
+                "20", (forge.getWurmId() + 1) + "," + forge.getWurmId(), (Object[])crafterType.getAllTypes()), "");
+        WorkBook workBook = getWorkBookFromItem(workBookItem);
+        assertEquals(Collections.singletonList(forge), workBook.forges);
+        assertTrue(Objects.requireNonNull(workBookItem.getFirstContainedItem().getInscription()).getInscription().startsWith("20\n" + forge.getWurmId() + "\n"));
+    }
+
     @Test
     void testWorkBookLoadingInvalidForge() {
         Item forge = factory.createNewItem(ItemList.forge);
@@ -169,7 +214,7 @@ class WorkBookTests {
         workBookItem.getFirstContainedItem().setInscription(Joiner.on("\n").join(
                 "20", forge.getWurmId() + 1, (Object[])crafterType.getAllTypes()), "");
         WorkBook workBook = getWorkBookFromItem(workBookItem);
-        assertNull(workBook.forge);
+        assertTrue(workBook.forges.isEmpty());
         assertEquals("20\n-10\n", Objects.requireNonNull(workBookItem.getFirstContainedItem().getInscription()).getInscription().substring(0, 7));
     }
 
@@ -434,7 +479,7 @@ class WorkBookTests {
         WorkBook workBook = createNewWorkbook(20);
 
         assertFalse(workBook.isForgeAssigned());
-        workBook.setForge(factory.createNewItem(ItemList.forge));
+        workBook.addForge(factory.createNewItem(ItemList.forge));
         assertTrue(workBook.isForgeAssigned());
     }
 
@@ -483,12 +528,26 @@ class WorkBookTests {
     }
 
     @Test
-    void testSetForge() {
+    void testAddForge() {
         WorkBook workBook = createNewWorkbook(20);
         Item forge = factory.createNewItem(ItemList.forge);
-        workBook.setForge(forge);
+        workBook.addForge(forge);
+
+        assertEquals(Collections.singletonList(forge), workBook.forges);
+    }
+
+    @Test
+    void testSeveralForgesSaved() {
+        WorkBook workBook = createNewWorkbook(20);
+        Item forge1 = factory.createNewItem(ItemList.forge);
+        Item forge2 = factory.createNewItem(ItemList.forge);
+        workBook.addForge(forge1);
+        workBook.addForge(forge2);
+        workBook.removeForge(forge1);
+        workBook.addForge(forge1);
 
-        assertEquals(forge, workBook.forge);
+        WorkBook postLoad = getWorkBookFromItem(workBook.workBookItem);
+        assertEquals(Arrays.asList(forge2, forge1), postLoad.forges);
     }
 
     @Test
@@ -516,6 +575,23 @@ class WorkBookTests {
         assertEquals("Page 1", pages.next().getDescription());
     }
 
+    private static final int MAX_PAGES = 20;
+
+    private List<Item> getPagesInOrder(Item workBookItem) {
+        return workBookItem.getItems().stream().sorted(Comparator.comparingInt(i -> i.getDescription().equals("Contents") ? 0 : Integer.parseInt(i.getDescription().substring(5))))
+                       .collect(Collectors.toList());
+    }
+
+    private List<Item> fillPages(WorkBook workBook, int pageCount) throws WorkBook.WorkBookFull {
+        List<Item> items = new ArrayList<>();
+        while (workBook.workBookItem.getItemCount() < pageCount + 1) {
+            Item item = factory.createNewItem();
+            items.add(item);
+            workBook.addJob(123, item, 1, false, 1);
+        }
+        return items;
+    }
+
     @Test
     void testSavingMaxPages() throws NoSuchTemplateException, FailedException, WorkBook.WorkBookFull {
         WorkBook workBook = WorkBook.createNewWorkBook(new CrafterType(SkillList.SMITHING_BLACKSMITHING), 20);
@@ -523,56 +599,45 @@ class WorkBookTests {
         assertEquals(1, workBook.workBookItem.getItemCount());
 
         Item tool = factory.createNewItem();
-        int newJobLength = Job.toString(123, tool, 1, false, 1, false).length();
-        int pageCount = 9;
-        int length = 0;
-        while (pageCount > 0) {
-            length += newJobLength;
-            if (length > 500) {
-                --pageCount;
-                length = 0;
-            } else {
+        try {
+            //noinspection InfiniteLoopStatement
+            while (true)
                 workBook.addJob(123, tool, 1, false, 1);
-            }
-        }
+        } catch (WorkBook.WorkBookFull ignored) {}
 
-        assertEquals(10, workBook.workBookItem.getItemCount());
-        Iterator<Item> pages = workBook.workBookItem.getItems().stream().sorted(Comparator.comparing(Item::getDescription)).iterator();
+        assertEquals(MAX_PAGES + 1, workBook.workBookItem.getItemCount());
+        Iterator<Item> pages = getPagesInOrder(workBook.workBookItem).iterator();
         assertEquals("Contents", pages.next().getDescription());
 
-        for (int i = 1; i <= 9; i++) {
-            assertEquals("Page " + i, pages.next().getDescription());
+        for (int i = 1; i <= MAX_PAGES; i++) {
+            Item page = pages.next();
+            assertEquals("Page " + i, page.getDescription());
+            assertTrue(Objects.requireNonNull(page.getInscription()).getInscription().length() <= 500);
         }
     }
 
     @Test
-    void testLoadingMaxPages() throws NoSuchTemplateException, FailedException, WorkBook.WorkBookFull {
+    void testLoadingMaxPages() throws NoSuchTemplateException, FailedException {
         WorkBook workBook = WorkBook.createNewWorkBook(new CrafterType(SkillList.SMITHING_BLACKSMITHING), 20);
 
         Item tool = factory.createNewItem();
-        int newJobLength = Job.toString(0, tool, 1, false, 1, false).length() - 1;
-        int pageCount = 9;
-        int length = 0;
         int customerId = 1;
-        while (pageCount > 0) {
-            int customerIdLength = Integer.toString(customerId).length();
-            length += customerIdLength + newJobLength;
-            if (length > 500) {
-                --pageCount;
-                length = 0;
-            } else {
+        try {
+            //noinspection InfiniteLoopStatement
+            while (true) {
                 workBook.addJob(customerId, tool, 1, false, 1);
                 ++customerId;
             }
-        }
+        } catch (WorkBook.WorkBookFull ignored) {}
 
-        assertEquals(10, workBook.workBookItem.getItemCount());
+        assertEquals(MAX_PAGES + 1, workBook.workBookItem.getItemCount());
 
-        customerId = 1;
-        for (Job job : workBook) {
-            assertEquals(customerId, job.customerId);
-            ++customerId;
+        int expected = 1;
+        for (Job job : getWorkBookFromItem(workBook.workBookItem)) {
+            assertEquals(expected, job.customerId);
+            ++expected;
         }
+        assertEquals(customerId, expected);
     }
 
     @Test
@@ -582,20 +647,349 @@ class WorkBookTests {
         assertEquals(1, workBook.workBookItem.getItemCount());
 
         Item tool = factory.createNewItem();
-        int newJobLength = Job.toString(123, tool, 1, false, 1, false).length();
-        int pageCount = 9;
-        int length = 0;
-        while (pageCount > 0) {
-            length += newJobLength;
-            if (length > 500) {
-                --pageCount;
-                length = 0;
-            } else {
+        fillPages(workBook, MAX_PAGES);
+        try {
+            //noinspection InfiniteLoopStatement
+            while (true)
                 workBook.addJob(123, tool, 1, false, 1);
-            }
-        }
+        } catch (WorkBook.WorkBookFull ignored) {}
 
-        assertEquals(10, workBook.workBookItem.getItemCount());
+        assertEquals(MAX_PAGES + 1, workBook.workBookItem.getItemCount());
         assertThrows(WorkBook.WorkBookFull.class, () -> workBook.addJob(123, tool, 1, false, 1));
     }
+
+    @Test
+    void testCompactFormatHoldsMoreJobsThanOriginal() throws NoSuchTemplateException, FailedException, WorkBook.WorkBookFull {
+        WorkBook workBook = WorkBook.createNewWorkBook(new CrafterType(SkillList.SMITHING_BLACKSMITHING), 20);
+        Creature player = factory.createNewPlayer();
+        Item tool = factory.createNewItem();
+        String original = player.getWurmId() + "," + tool.getWurmId() + ",20.0,0,1000,0\n";
+
+        int count = 0;
+        while (workBook.workBookItem.getItemCount() < 3) {
+            workBook.addJob(player.getWurmId(), tool, 20, false, 1000);
+            ++count;
+        }
+
+        assertTrue(count - 1 > 500 / original.length());
+    }
+
+    @Test
+    void testOriginalFormatPagesAreRewritten() {
+        Item workBookItem = createBlankWorkbookItem();
+        workBookItem.getFirstContainedItem().setInscription(Joiner.on("\n").join(
+                "20", "-10", (Object[])crafterType.getAllTypes()), "");
+        Item tool = factory.createNewItem();
+        Item page1 = getOrCreatePageOne(workBookItem);
+        page1.setInscription("123," + tool.getWurmId() + ",25.0,1,100,0\n" +
+                             "124," + tool.getWurmId() + ",30.5,0,20,1\n" +
+                             tool.getWurmId() + "\n", "");
+
+        WorkBook workBook = getWorkBookFromItem(workBookItem);
+        String inscription = Objects.requireNonNull(page1.getInscription()).getInscription();
+        assertTrue(inscription.startsWith(JobEncoding.VERSION_2 + "\n"));
+
+        Iterator<Job> jobs = getWorkBookFromItem(workBookItem).iterator();
+        Job first = jobs.next();
+        assertEquals(123, first.customerId);
+        assertEquals(25.0f, first.targetQL);
+        assertTrue(first.mailWhenDone);
+        assertEquals(100, first.getPriceCharged());
+        assertFalse(first.isDone());
+        Job second = jobs.next();
+        assertEquals(124, second.customerId);
+        assertEquals(30.5f, second.targetQL);
+        assertFalse(second.mailWhenDone);
+        assertEquals(20, second.getPriceCharged());
+        assertTrue(second.isDone());
+        assertTrue(jobs.next().isDonation());
+        assertEquals(1, workBook.todo());
+    }
+
+    @Test
+    void testTargetQLNotLowerAfterReload() throws WorkBook.WorkBookFull {
+        WorkBook workBook = createNewWorkbook(20);
+        Item tool = factory.createNewItem();
+        workBook.addJob(123, tool, 45.3f, false, 1);
+
+        assertEquals(45.3f, getWorkBookFromItem(workBook.workBookItem).iterator().next().targetQL);
+    }
+
+    @Test
+    void testLongWaitingJobsStayWithinInscriptionLimit() throws NoSuchTemplateException, FailedException, WorkBook.WorkBookFull {
+        WorkBook workBook = WorkBook.createNewWorkBook(new CrafterType(SkillList.SMITHING_BLACKSMITHING), 20);
+        fillPages(workBook, 2);
+
+        for (Job job : workBook) {
+            job.queuedAt -= 365 * 24 * TimeConstants.HOUR_MILLIS;
+            workBook.setState(job, JobState.HEATING);
+        }
+
+        for (Item page : workBook.workBookItem.getItems())
+            assertTrue(Objects.requireNonNull(page.getInscription()).getInscription().length() <= 500);
+    }
+
+    @Test
+    void testSetDoneOnlyRewritesJobPage() throws NoSuchTemplateException, FailedException, WorkBook.WorkBookFull {
+        WorkBook workBook = WorkBook.createNewWorkBook(new CrafterType(SkillList.SMITHING_BLACKSMITHING), 20);
+        List<Item> items = fillPages(workBook, 2);
+
+        Item page1 = getPagesInOrder(workBook.workBookItem).get(1);
+        String page1Inscription = Objects.requireNonNull(page1.getInscription()).getInscription();
+        page1.setInscription("untouched", "");
+
+        Job last = null;
+        for (Job job : workBook) {
+            if (job.item == items.get(items.size() - 1))
+                last = job;
+        }
+        workBook.setDone(Objects.requireNonNull(last));
+
+        assertEquals("untouched", Objects.requireNonNull(page1.getInscription()).getInscription());
+        page1.setInscription(page1Inscription, "");
+        assertEquals(1, getWorkBookFromItem(workBook.workBookItem).done());
+    }
+
+    @Test
+    void testRemovingFirstPageJobsRenumbersPages() throws NoSuchTemplateException, FailedException, WorkBook.WorkBookFull {
+        WorkBook workBook = WorkBook.createNewWorkBook(new CrafterType(SkillList.SMITHING_BLACKSMITHING), 20);
+        List<Item> items = fillPages(workBook, 2);
+
+        for (int i = 0; i < items.size() - 1; ++i) {
+            workBook.removeJob(items.get(i));
+        }
+
+        assertEquals(2, workBook.workBookItem.getItemCount());
+        Iterator<Item> pages = getPagesInOrder(workBook.workBookItem).iterator();
+        assertEquals("Contents", pages.next().getDescription());
+        assertEquals("Page 1", pages.next().getDescription());
+        assertEquals(items.get(items.size() - 1), getWorkBookFromItem(workBook.workBookItem).iterator().next().item);
+    }
+
+    @Test
+    void testAddJobsAddsAllJobsInOneBatch() throws WorkBook.WorkBookFull {
+        WorkBook workBook = createNewWorkbook(20);
+        WorkBook.JobBatch batch = workBook.newBatch();
+        for (int i = 0; i < 30; ++i) {
+            batch.addJob(123, factory.createNewItem(), 20, false, 1);
+        }
+        batch.addDonation(factory.createNewItem());
+
+        workBook.addJobs(batch);
+
+        assertEquals(30, workBook.todo());
+        assertEquals(30, getWorkBookFromItem(workBook.workBookItem).todo());
+    }
+
+    @Test
+    void testAddJobsRejectsWholeBatchWhenFull() throws NoSuchTemplateException, FailedException, WorkBook.WorkBookFull {
+        WorkBook workBook = WorkBook.createNewWorkBook(new CrafterType(SkillList.SMITHING_BLACKSMITHING), 20);
+        fillPages(workBook, MAX_PAGES - 1);
+        int todo = workBook.todo();
+
+        WorkBook.JobBatch batch = workBook.newBatch();
+        for (int i = 0; i < todo / (MAX_PAGES - 1) * 2; ++i) {
+            batch.addJob(123, factory.createNewItem(), 1, false, 1);
+        }
+
+        assertFalse(workBook.hasEnoughSpaceFor(batch));
+        assertThrows(WorkBook.WorkBookFull.class, () -> workBook.addJobs(batch));
+        assertEquals(todo, workBook.todo());
+        assertEquals(todo, getWorkBookFromItem(workBook.workBookItem).todo());
+    }
+
+    @Test
+    void testRemoveJobs() throws WorkBook.WorkBookFull {
+        WorkBook workBook = createNewWorkbook(20);
+        Item item1 = factory.createNewItem();
+        Item item2 = factory.createNewItem();
+        Item item3 = factory.createNewItem();
+        workBook.addJob(123, item1, 20, false, 1);
+        workBook.addJob(123, item2, 20, false, 1);
+        workBook.addJob(123, item3, 20, false, 1);
+
+        workBook.removeJobs(Arrays.asList(item1, item3));
+
+        assertFalse(workBook.isJobItem(item1));
+        assertTrue(workBook.isJobItem(item2));
+        assertFalse(workBook.isJobItem(item3));
+        assertEquals(1, getWorkBookFromItem(workBook.workBookItem).todo());
+    }
+
+    @Test
+    void testJournalHoldsMoreJobsThanPages() throws Exception {
+        setJobStore(CrafterMod.JobStoreOption.journal);
+        WorkBook workBook = createNewWorkbook(20);
+        WorkBook.JobBatch batch = workBook.newBatch();
+        for (int i = 0; i < 600; ++i) {
+            batch.addJob(123, factory.createNewItem(), 20, false, 1);
+        }
+        workBook.addJobs(batch);
+
+        assertEquals(600, workBook.todo());
+        assertEquals(1, workBook.workBookItem.getItemCount());
+        assertEquals(600, getWorkBookFromItem(workBook.workBookItem).todo());
+    }
+
+    @Test
+    void testJournalRecordsChanges() throws Exception {
+        setJobStore(CrafterMod.JobStoreOption.journal);
+        WorkBook workBook = createNewWorkbook(20);
+        Item item1 = factory.createNewItem();
+        Item item2 = factory.createNewItem();
+        Item item3 = factory.createNewItem();
+        workBook.addJob(123, item1, 20, true, 1);
+        workBook.addJob(123, item2, 20, false, 1);
+        workBook.addDonation(item3);
+        workBook.setDone(workBook.iterator().next());
+        workBook.removeJob(item2);
+
+        WorkBook loaded = getWorkBookFromItem(workBook.workBookItem);
+        List<Job> jobs = new ArrayList<>();
+        loaded.forEach(jobs::add);
+        assertEquals(2, jobs.size());
+        assertEquals(item1, jobs.get(0).getItem());
+        assertTrue(jobs.get(0).isDone());
+        assertTrue(jobs.get(0).mailWhenDone());
+        assertEquals(item3, jobs.get(1).getItem());
+        assertTrue(jobs.get(1).isDonation());
+    }
+
+    @Test
+    void testJournalCompacted() throws Exception {
+        setJobStore(CrafterMod.JobStoreOption.journal);
+        WorkBook workBook = createNewWorkbook(20);
+        Item item = factory.createNewItem();
+        workBook.addJob(123, item, 20, false, 1);
+        for (int i = 0; i < 100; ++i) {
+            Item other = factory.createNewItem();
+            workBook.addJob(123, other, 20, false, 1);
+            workBook.removeJob(other);
+        }
+
+        Path journal = JournalJobStore.directory.resolve("workbook_" + workBook.workBookItem.getWurmId() + ".journal");
+        assertTrue(Files.readAllLines(journal).size() < 100);
+        assertEquals(1, getWorkBookFromItem(workBook.workBookItem).todo());
+    }
+
+    @Test
+    void testJobsMovedWhenJobStoreChanged() throws Exception {
+        WorkBook workBook = createNewWorkbook(20);
+        Item item = factory.createNewItem();
+        workBook.addJob(123, item, 20, false, 1);
+        assertEquals(2, workBook.workBookItem.getItemCount());
+
+        setJobStore(CrafterMod.JobStoreOption.journal);
+        WorkBook journal = getWorkBookFromItem(workBook.workBookItem);
+        assertTrue(journal.isJobItem(item));
+        assertEquals(1, workBook.workBookItem.getItemCount());
+
+        setJobStore(CrafterMod.JobStoreOption.inscription);
+        WorkBook inscriptions = getWorkBookFromItem(workBook.workBookItem);
+        assertTrue(inscriptions.isJobItem(item));
+        assertEquals(2, workBook.workBookItem.getItemCount());
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(JournalJobStore.directory)) {
+            assertFalse(files.iterator().hasNext());
+        }
+    }
+
+    @Test
+    void testDeferredSavesWrittenAtEnd() throws WorkBook.WorkBookFull {
+        WorkBook workBook = createNewWorkbook(20);
+        Item item1 = factory.createNewItem();
+        Item item2 = factory.createNewItem();
+        workBook.addJob(123, item1, 20, false, 1);
+        workBook.addJob(123, item2, 20, false, 1);
+
+        workBook.startDeferredSaves();
+        for (Job job : workBook)
+            workBook.setDone(job);
+        workBook.removeJob(item2);
+        assertEquals(0, getWorkBookFromItem(workBook.workBookItem).done());
+        assertEquals(2, getWorkBookFromItem(workBook.workBookItem).todo());
+
+        workBook.endDeferredSaves();
+        WorkBook loaded = getWorkBookFromItem(workBook.workBookItem);
+        assertEquals(1, loaded.done());
+        assertEquals(0, loaded.todo());
+        assertFalse(loaded.isJobItem(item2));
+    }
+
+    @Test
+    void testCountsFollowChanges() throws WorkBook.WorkBookFull {
+        Creature customer = factory.createNewPlayer();
+        WorkBook workBook = createNewWorkbook(20);
+        Item item1 = factory.createNewItem();
+        Item item2 = factory.createNewItem();
+        Item donation = factory.createNewItem();
+        workBook.addJob(customer.getWurmId(), item1, 20, false, 10);
+        workBook.addJob(customer.getWurmId(), item2, 20, false, 20);
+        workBook.addDonation(donation);
+        assertEquals(2, workBook.todo());
+        assertEquals(0, workBook.done());
+        assertEquals(2, workBook.getJobsFor(customer).size());
+
+        workBook.setDone(workBook.getJobsFor(customer).get(1));
+        assertEquals(1, workBook.todo());
+        assertEquals(1, workBook.done());
+        assertEquals(20, workBook.getMoneyToCollect());
+
+        workBook.removeJob(item2);
+        assertEquals(1, workBook.todo());
+        assertEquals(0, workBook.done());
+        assertEquals(0, workBook.getMoneyToCollect());
+        assertEquals(1, workBook.getJobsFor(customer).size());
+    }
+
+    @Test
+    void testRemovingDuringIterationDoesNotSkipJobs() throws WorkBook.WorkBookFull {
+        WorkBook workBook = createNewWorkbook(20);
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 4; ++i) {
+            Item item = factory.createNewItem();
+            items.add(item);
+            workBook.addJob(123, item, 20, false, 1);
+        }
+
+        List<Item> seen = new ArrayList<>();
+        for (Job job : workBook) {
+            seen.add(job.getItem());
+            if (seen.size() % 2 == 1)
+                workBook.removeJob(job.getItem());
+        }
+
+        assertEquals(items, seen);
+        assertEquals(2, workBook.todo());
+    }
+
+    @Test
+    void testJobStateSaved() throws WorkBook.WorkBookFull {
+        WorkBook workBook = createNewWorkbook(20);
+        Item item = factory.createNewItem();
+        workBook.addJob(123, item, 20, true, 1);
+        Job job = workBook.iterator().next();
+        workBook.setState(job, JobState.HEATING);
+
+        Job loaded = getWorkBookFromItem(workBook.workBookItem).iterator().next();
+        assertEquals(JobState.HEATING, loaded.getState());
+        assertFalse(loaded.isDone());
+        assertTrue(loaded.mailWhenDone());
+        assertEquals(job.queuedAt / 1000, loaded.queuedAt / 1000);
+        assertEquals(job.stateSince / 1000, loaded.stateSince / 1000);
+
+        workBook.setDone(job);
+        loaded = getWorkBookFromItem(workBook.workBookItem).iterator().next();
+        assertEquals(JobState.DONE, loaded.getState());
+        assertTrue(loaded.isDone());
+    }
+
+    @Test
+    void testJobStateSavedInJournal() throws Exception {
+        setJobStore(CrafterMod.JobStoreOption.journal);
+        WorkBook workBook = createNewWorkbook(20);
+        workBook.addJob(123, factory.createNewItem(), 20, false, 1);
+        workBook.setState(workBook.iterator().next(), JobState.IMPROVING);
+
+        assertEquals(JobState.IMPROVING, getWorkBookFromItem(workBook.workBookItem).iterator().next().getState());
+    }
 }